@@ -2,10 +2,13 @@ package com.app.Assignment;
 
 import com.app.Dto.ApiResponse;
 import com.app.Dto.AssignmentDto;
+import com.app.common.NdjsonStreams;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -15,9 +18,11 @@ import java.util.stream.Collectors;
 public class AssignmentController {
 
     private final AssignmentService assignmentService;
+    private final NdjsonStreams ndjsonStreams;
 
-    public AssignmentController(AssignmentService assignmentService) {
+    public AssignmentController(AssignmentService assignmentService, NdjsonStreams ndjsonStreams) {
         this.assignmentService = assignmentService;
+        this.ndjsonStreams = ndjsonStreams;
     }
 
     @GetMapping
@@ -28,6 +33,11 @@ public class AssignmentController {
         return ResponseEntity.ok(new ApiResponse<>(true, "Assignments retrieved", dtos));
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAssignments() {
+        return ndjsonStreams.stream(assignmentService::streamAllAssignments, assignmentService::convertToDto);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<AssignmentDto>> getAssignment(@PathVariable String id) {
         AssignmentEntity assignment = assignmentService.getAssignmentById(id);
@@ -2,7 +2,11 @@ package com.app.Assignment;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.stream.Stream;
+
 public interface AssignmentRepository extends MongoRepository<AssignmentEntity, String> {
     // Additional custom query methods (if needed) can be defined here.
 
+    // Reads from a cursor; the caller must close the stream
+    Stream<AssignmentEntity> streamAllBy();
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class AssignmentService {
@@ -19,6 +20,11 @@ public class AssignmentService {
         return assignmentRepository.findAll();
     }
 
+    // Cursor-backed read of all assignments; the caller must close the stream
+    public Stream<AssignmentEntity> streamAllAssignments() {
+        return assignmentRepository.streamAllBy();
+    }
+
     public AssignmentEntity getAssignmentById(String id) {
         Optional<AssignmentEntity> assignmentOptional = assignmentRepository.findById(id);
         return assignmentOptional.orElse(null);
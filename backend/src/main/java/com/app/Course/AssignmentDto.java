@@ -1,6 +1,7 @@
 
 package com.app.Course;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,4 +19,15 @@ public class AssignmentDto {
     private boolean isRecurring;
     private String recurrencePattern;
     private String recurrenceEndDate;
+
+    // The client sends and reads "isRecurring"; the generated accessors alone would map it to "recurring"
+    @JsonProperty("isRecurring")
+    public boolean isRecurring() {
+        return isRecurring;
+    }
+
+    @JsonProperty("isRecurring")
+    public void setRecurring(boolean recurring) {
+        isRecurring = recurring;
+    }
 }
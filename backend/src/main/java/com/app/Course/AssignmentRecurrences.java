@@ -0,0 +1,136 @@
+package com.app.Course;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * Expands assignments into their due dates within a window.
+ *
+ * Bounded windows are widened to whole days and cached, keyed by the fields that define the series
+ * (id, first due date, pattern, end date), so editing any of them starts a fresh entry and repeated
+ * calendar and dashboard reads of the same days skip the expansion. Open-ended reads walk the
+ * series lazily and stop after the requested number of occurrences.
+ */
+@Component
+public class AssignmentRecurrences {
+
+    // Upper bound on the occurrences kept for one cached window
+    private static final int MAX_OCCURRENCES_PER_WINDOW = 1_000;
+
+    private record WindowKey(String assignmentId, String dueDate, String pattern, String endDate,
+                             LocalDate fromDay, LocalDate toDay) {
+    }
+
+    private final Cache<WindowKey, List<LocalDateTime>> windows;
+
+    public AssignmentRecurrences(MeterRegistry meterRegistry,
+                                 @Value("${courses.assignments.recurrence-cache.max-size:10000}") long maxSize,
+                                 @Value("${courses.assignments.recurrence-cache.ttl:PT1H}") Duration ttl) {
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, windows, "assignmentRecurrences");
+    }
+
+    /*
+     * Due dates of the assignment in [from, to], at most limit of them, in order. to may be null for
+     * an open-ended window. A one-off assignment, or one whose pattern cannot be parsed, has its
+     * stored due date as its only occurrence.
+     */
+    public List<LocalDateTime> occurrences(AssignmentDto assignment, LocalDateTime from, LocalDateTime to, int limit) {
+        LocalDateTime start = parseDateTime(assignment.getDueDate());
+        if (start == null) {
+            return List.of();
+        }
+        RecurrenceRule rule = ruleOf(assignment);
+        if (rule == null) {
+            boolean inWindow = !start.isBefore(from) && (to == null || !start.isAfter(to));
+            return inWindow ? List.of(start) : List.of();
+        }
+
+        if (to == null) {
+            return take(rule.occurrences(start, from), null, limit);
+        }
+
+        WindowKey key = new WindowKey(assignment.getId(), assignment.getDueDate(), assignment.getRecurrencePattern(),
+                assignment.getRecurrenceEndDate(), from.toLocalDate(), to.toLocalDate());
+        List<LocalDateTime> window = windows.get(key, k -> take(
+                rule.occurrences(start, k.fromDay().atStartOfDay()), k.toDay().plusDays(1).atStartOfDay(),
+                MAX_OCCURRENCES_PER_WINDOW));
+
+        List<LocalDateTime> result = new ArrayList<>();
+        for (LocalDateTime occurrence : window) {
+            if (result.size() == limit || occurrence.isAfter(to)) {
+                break;
+            }
+            if (!occurrence.isBefore(from)) {
+                result.add(occurrence);
+            }
+        }
+        return result;
+    }
+
+    private static RecurrenceRule ruleOf(AssignmentDto assignment) {
+        if (!assignment.isRecurring() || assignment.getRecurrencePattern() == null) {
+            return null;
+        }
+        try {
+            return RecurrenceRule.parse(assignment.getRecurrencePattern(), parseDateTime(assignment.getRecurrenceEndDate()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Occurrences strictly before end (when given), at most limit of them
+    private static List<LocalDateTime> take(Iterator<LocalDateTime> occurrences, LocalDateTime end, int limit) {
+        List<LocalDateTime> taken = new ArrayList<>();
+        while (taken.size() < limit && occurrences.hasNext()) {
+            LocalDateTime occurrence = occurrences.next();
+            if (end != null && !occurrence.isBefore(end)) {
+                break;
+            }
+            taken.add(occurrence);
+        }
+        return taken;
+    }
+
+    /*
+     * Reads a stored date: local ISO date-time as written by the client, a date with an offset,
+     * or a bare date (taken as the end of that day). Returns null if it is none of these.
+     */
+    static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            // fall through
+        }
+        try {
+            return OffsetDateTime.parse(value).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            // fall through
+        }
+        try {
+            return LocalDate.parse(value).atTime(23, 59, 59);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.app.Course;
+
+/*
+ * Published when a user's course is created, updated or deleted.
+ */
+public record CourseChangedEvent(String userId) {
+}
@@ -1,15 +1,21 @@
 
 package com.app.Course;
 
-import com.app.security.JWTAuthenticationFilter;
-import com.app.security.JWTGenerator;
-import jakarta.servlet.http.HttpServletRequest;
+import com.app.Dto.PageDto;
+import com.app.common.ETags;
+import com.app.security.CurrentUserId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/courses")
@@ -18,14 +24,9 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
 
-    @Autowired
-    private JWTGenerator jwtGenerator;
-
     @GetMapping
-    public ResponseEntity<List<CourseEntity>> getAllCourses(HttpServletRequest request) {
+    public ResponseEntity<List<CourseEntity>> getAllCourses(@CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             List<CourseEntity> courses = courseService.getAllCoursesByUserId(userId);
             return new ResponseEntity<>(courses, HttpStatus.OK);
         } catch (Exception e) {
@@ -33,16 +34,35 @@ public class CourseController {
         }
     }
 
+    // Course list view: no embedded items, only their counts
+    @GetMapping("/summary")
+    public ResponseEntity<List<CourseSummaryDto>> getCourseSummaries(@CurrentUserId String userId) {
+        return new ResponseEntity<>(courseService.getCourseSummaries(userId), HttpStatus.OK);
+    }
+
+    // Current and projected marks for every course, from the stored grade totals
+    @GetMapping("/grades/summary")
+    public ResponseEntity<GradesSummaryDto> getGradesSummary(@CurrentUserId String userId) {
+        return new ResponseEntity<>(courseService.getGradesSummary(userId), HttpStatus.OK);
+    }
+
+    // Unsubmitted assignments due between from (default now) and to across all courses, soonest first
+    @GetMapping("/assignments/upcoming")
+    public ResponseEntity<List<UpcomingAssignmentDto>> getUpcomingAssignments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit,
+            @CurrentUserId String userId) {
+        LocalDateTime start = from != null ? from : LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        return new ResponseEntity<>(courseService.getUpcomingAssignments(userId, start, to, limit), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<CourseEntity> getCourseById(@PathVariable String id, HttpServletRequest request) {
-        System.out.println("Course Id: " + id);
+    public ResponseEntity<CourseEntity> getCourseById(@PathVariable String id, @CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             CourseEntity course = courseService.getCourseById(id, userId);
-            System.out.println("Found Course: " + course);
             if (course != null) {
-                return new ResponseEntity<>(course, HttpStatus.OK);
+                return ResponseEntity.ok().eTag(ETags.of(course.getVersion())).body(course);
             } else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
@@ -52,12 +72,10 @@ public class CourseController {
     }
 
     @PostMapping
-    public ResponseEntity<CourseEntity> createCourse(@RequestBody CourseEntity course, HttpServletRequest request) {
-        System.out.println("New Course: " + course);
+    public ResponseEntity<CourseEntity> createCourse(@RequestBody CourseEntity course, @CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             course.setUserId(userId);
+            course.setVersion(null);
             CourseEntity savedCourse = courseService.saveCourse(course);
             return new ResponseEntity<>(savedCourse, HttpStatus.CREATED);
         } catch (Exception e) {
@@ -66,45 +84,89 @@ public class CourseController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<CourseEntity> updateCourse(@PathVariable String id, @RequestBody CourseEntity course, HttpServletRequest request) {
+    public ResponseEntity<CourseEntity> updateCourse(@PathVariable String id, @RequestBody CourseEntity course, @CurrentUserId String userId,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
-            CourseEntity existingCourse = courseService.getCourseById(id, userId);
-            if (existingCourse == null) {
+            CourseEntity updatedCourse = courseService.updateCourse(id, course, userId, ETags.parseIfMatch(ifMatch));
+            if (updatedCourse == null) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
-            course.setId(id);
-            course.setUserId(userId);
-            CourseEntity updatedCourse = courseService.saveCourse(course);
-            return new ResponseEntity<>(updatedCourse, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(ETags.of(updatedCourse.getVersion())).body(updatedCourse);
+        } catch (OptimisticLockingFailureException e) {
+            // Stale If-Match, or still conflicting after the retries
+            return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCourse(@PathVariable String id, HttpServletRequest request) {
+    public ResponseEntity<Void> deleteCourse(@PathVariable String id, @CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             CourseEntity course = courseService.getCourseById(id, userId);
             if (course == null) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
-            courseService.deleteCourse(id);
+            courseService.deleteCourse(id, userId);
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
     }
 
+    // Paginated sub-resources; long note bodies are left out of the list and loaded per note
+
+    @GetMapping("/{courseId}/assignments")
+    public ResponseEntity<PageDto<AssignmentDto>> getAssignments(@PathVariable String courseId,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @CurrentUserId String userId) {
+        return pageResponse(() -> courseService.getAssignmentsPage(courseId, userId, cursor, limit));
+    }
+
+    @GetMapping("/{courseId}/notes")
+    public ResponseEntity<PageDto<NoteDto>> getNotes(@PathVariable String courseId,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @CurrentUserId String userId) {
+        return pageResponse(() -> courseService.getNotesPage(courseId, userId, cursor, limit));
+    }
+
+    @GetMapping("/{courseId}/notes/{noteId}")
+    public ResponseEntity<NoteDto> getNote(@PathVariable String courseId, @PathVariable String noteId, @CurrentUserId String userId) {
+        NoteDto note = courseService.getNote(courseId, noteId, userId);
+        if (note != null) {
+            return new ResponseEntity<>(note, HttpStatus.OK);
+        } else {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/{courseId}/grades")
+    public ResponseEntity<PageDto<GradeDto>> getGrades(@PathVariable String courseId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       @CurrentUserId String userId) {
+        return pageResponse(() -> courseService.getGradesPage(courseId, userId, cursor, limit));
+    }
+
+    private static <T> ResponseEntity<PageDto<T>> pageResponse(Supplier<PageDto<T>> page) {
+        try {
+            PageDto<T> result = page.get();
+            if (result != null) {
+                return new ResponseEntity<>(result, HttpStatus.OK);
+            } else {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // Assignment endpoints
     @PostMapping("/{courseId}/assignments")
-    public ResponseEntity<AssignmentDto> addAssignment(@PathVariable String courseId, @RequestBody AssignmentDto assignment, HttpServletRequest request) {
+    public ResponseEntity<AssignmentDto> addAssignment(@PathVariable String courseId, @RequestBody AssignmentDto assignment, @CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             AssignmentDto savedAssignment = courseService.addAssignment(courseId, assignment, userId);
             return new ResponseEntity<>(savedAssignment, HttpStatus.CREATED);
         } catch (Exception e) {
@@ -113,10 +175,8 @@ public class CourseController {
     }
 
     @PatchMapping("/{courseId}/assignments/{assignmentId}/toggle")
-    public ResponseEntity<AssignmentDto> toggleAssignmentStatus(@PathVariable String courseId, @PathVariable String assignmentId, HttpServletRequest request) {
+    public ResponseEntity<AssignmentDto> toggleAssignmentStatus(@PathVariable String courseId, @PathVariable String assignmentId, @CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             AssignmentDto updatedAssignment = courseService.toggleAssignmentStatus(courseId, assignmentId, userId);
             return new ResponseEntity<>(updatedAssignment, HttpStatus.OK);
         } catch (Exception e) {
@@ -126,10 +186,8 @@ public class CourseController {
 
     // Notes endpoints
     @PostMapping("/{courseId}/notes")
-    public ResponseEntity<NoteDto> addNote(@PathVariable String courseId, @RequestBody NoteDto note, HttpServletRequest request) {
+    public ResponseEntity<NoteDto> addNote(@PathVariable String courseId, @RequestBody NoteDto note, @CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             NoteDto savedNote = courseService.addNote(courseId, note, userId);
             return new ResponseEntity<>(savedNote, HttpStatus.CREATED);
         } catch (Exception e) {
@@ -139,14 +197,24 @@ public class CourseController {
 
     // Grades endpoints
     @PostMapping("/{courseId}/grades")
-    public ResponseEntity<GradeDto> addGrade(@PathVariable String courseId, @RequestBody GradeDto grade, HttpServletRequest request) {
+    public ResponseEntity<GradeDto> addGrade(@PathVariable String courseId, @RequestBody GradeDto grade, @CurrentUserId String userId) {
         try {
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userId = jwtGenerator.getUserIdFromJWT(token);
             GradeDto savedGrade = courseService.addGrade(courseId, grade, userId);
             return new ResponseEntity<>(savedGrade, HttpStatus.CREATED);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
+
+    @PutMapping("/{courseId}/grades/{gradeId}")
+    public ResponseEntity<GradeDto> updateGrade(@PathVariable String courseId, @PathVariable String gradeId, @RequestBody GradeDto grade, @CurrentUserId String userId) {
+        try {
+            GradeDto updatedGrade = courseService.updateGrade(courseId, gradeId, grade, userId);
+            return new ResponseEntity<>(updatedGrade, HttpStatus.OK);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
 }
@@ -2,12 +2,16 @@
 package com.app.Course;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "courses")
+// Serves lookups by user and lets the upcoming assignments query skip courses with nothing due in range
+@CompoundIndex(name = "user_assignment_due", def = "{ 'userId': 1, 'assignments.dueDate': 1 }")
 public class CourseEntity {
     @Id
     private String id;
@@ -21,6 +25,12 @@ public class CourseEntity {
     private List<AssignmentDto> assignments = new ArrayList<>();
     private List<NoteDto> notes = new ArrayList<>();
     private List<GradeDto> grades = new ArrayList<>();
+    // Running totals over grades, kept in step with $inc on every grade change
+    private double gradeWeightedSum;
+    private double gradeTotalWeight;
+    // Optimistic locking; also served as the ETag
+    @Version
+    private Long version;
 
     public CourseEntity() {
     }
@@ -112,4 +122,40 @@ public class CourseEntity {
     public void setGrades(List<GradeDto> grades) {
         this.grades = grades;
     }
+
+    public double getGradeWeightedSum() {
+        return gradeWeightedSum;
+    }
+
+    public void setGradeWeightedSum(double gradeWeightedSum) {
+        this.gradeWeightedSum = gradeWeightedSum;
+    }
+
+    public double getGradeTotalWeight() {
+        return gradeTotalWeight;
+    }
+
+    public void setGradeTotalWeight(double gradeTotalWeight) {
+        this.gradeTotalWeight = gradeTotalWeight;
+    }
+
+    // Recomputes the grade totals from the grades list, for when the whole list is replaced
+    public void recomputeGradeTotals() {
+        double weightedSum = 0;
+        double totalWeight = 0;
+        for (GradeDto grade : grades != null ? grades : List.<GradeDto>of()) {
+            weightedSum += grade.getPercentage() * grade.getWeight();
+            totalWeight += grade.getWeight();
+        }
+        this.gradeWeightedSum = weightedSum;
+        this.gradeTotalWeight = totalWeight;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,24 @@
+package com.app.Course;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Grade standing in one course, derived from the course's running grade totals.
+ * Weights are percentages of the final mark, so a fully graded course has a total weight of 100.
+ */
+@Data
+@NoArgsConstructor
+public class CourseGradeSummaryDto {
+    private String courseId;
+    private String name;
+    private String code;
+    private String color;
+    private double totalWeight;
+    // Average over the work graded so far; null until something with weight is graded
+    private Double currentAverage;
+    // Final mark if every remaining piece of work scored zero
+    private double projectedMinimum;
+    // Final mark if every remaining piece of work scored full marks
+    private double projectedMaximum;
+}
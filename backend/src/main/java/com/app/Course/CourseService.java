@@ -1,94 +1,588 @@
 
 package com.app.Course;
 
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import com.app.Dto.PageDto;
+import com.app.common.KeysetCursor;
+import com.app.common.OffsetCursor;
+import com.app.common.OptimisticRetry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 public class CourseService {
 
+    // Grade weights are percentages of the final mark
+    private static final double FULL_WEIGHT = 100;
+    // In-place updates bump the version like a save would, so ETags held by clients go stale
+    private static final AggregationExpression NEXT_VERSION =
+            context -> new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L));
+    // Upcoming assignments soonest first by parsed due date: stored one-off dates may carry an offset or be
+    // bare dates while expanded occurrences are local date-times. Unparseable dates sort last, by their text.
+    private static final Comparator<UpcomingAssignmentDto> UPCOMING_ORDER = Comparator
+            .comparing((UpcomingAssignmentDto u) -> AssignmentRecurrences.parseDateTime(u.getAssignment().getDueDate()),
+                    Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(u -> u.getAssignment().getDueDate(), Comparator.nullsLast(Comparator.naturalOrder()));
+
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteContentRepository noteContentRepository;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private AssignmentRecurrences assignmentRecurrences;
+
+    // Note bodies at least this long are stored in noteContents instead of the course; 0 keeps all inline
+    @Value("${courses.notes.external-content-min-length:4096}")
+    private int externalContentMinLength;
+
     public List<CourseEntity> getAllCoursesByUserId(String userId) {
-        return courseRepository.findByUserId(userId);
+        List<CourseEntity> courses = courseRepository.findByUserId(userId);
+        loadExternalContent(courses);
+        return courses;
     }
 
     public CourseEntity getCourseById(String id, String userId) {
-        return courseRepository.findById(id)
+        CourseEntity found = courseRepository.findById(id)
                 .filter(course -> course.getUserId().equals(userId))
                 .orElse(null);
+        if (found != null) {
+            loadExternalContent(List.of(found));
+        }
+        return found;
+    }
+
+    // Distinct course codes of the user, read without loading the course documents
+    public List<String> getCourseCodes(String userId) {
+        return mongoTemplate.findDistinct(Query.query(Criteria.where("userId").is(userId)), "code", CourseEntity.class, String.class);
+    }
+
+    /*
+     * Name, code, colour and item counts of every course of the user, computed in the database
+     * so the embedded assignments, notes and grades are never sent over the wire.
+     */
+    public List<CourseSummaryDto> getCourseSummaries(String userId) {
+        TypedAggregation<CourseEntity> aggregation = Aggregation.newAggregation(CourseEntity.class,
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                Aggregation.project("name", "instructor", "code", "schedule", "color")
+                        .and(sizeOf("$assignments")).as("assignmentCount")
+                        .and(context -> new Document("$size", new Document("$filter", new Document()
+                                .append("input", new Document("$ifNull", List.of("$assignments", List.of())))
+                                .append("as", "assignment")
+                                .append("cond", new Document("$ne", List.of("$$assignment.submitted", true))))))
+                        .as("pendingAssignmentCount")
+                        .and(sizeOf("$notes")).as("noteCount")
+                        .and(sizeOf("$grades")).as("gradeCount"));
+        return mongoTemplate.aggregate(aggregation, CourseSummaryDto.class).getMappedResults();
+    }
+
+    /*
+     * The user's unsubmitted assignments due within [from, to], soonest first, across all courses.
+     * Due dates are stored as local ISO date-time strings, so the range is compared as strings.
+     * Recurring assignments contribute one entry per occurrence in the window; only their first,
+     * stored occurrence can be marked submitted.
+     */
+    public List<UpcomingAssignmentDto> getUpcomingAssignments(String userId, LocalDateTime from, LocalDateTime to, Integer limit) {
+        int pageSize = KeysetCursor.pageSize(limit);
+        List<UpcomingAssignmentDto> upcoming = new ArrayList<>(aggregateAssignments(userId,
+                dueUnsubmitted("", from, to).and("isRecurring").ne(true),
+                dueUnsubmitted("assignments.", from, to).and("assignments.isRecurring").ne(true),
+                pageSize));
+
+        // A series may have started long before from, so only its first due date bounds the match
+        for (UpcomingAssignmentDto series : aggregateAssignments(userId,
+                recurringWithin("", from, to), recurringWithin("assignments.", from, to), null)) {
+            AssignmentDto assignment = series.getAssignment();
+            LocalDateTime submittedDueDate = assignment.isSubmitted()
+                    ? AssignmentRecurrences.parseDateTime(assignment.getDueDate()) : null;
+            for (LocalDateTime occurrence : assignmentRecurrences.occurrences(assignment, from, to, pageSize)) {
+                if (!occurrence.equals(submittedDueDate)) {
+                    upcoming.add(withDueDate(series, isoDateTime(occurrence)));
+                }
+            }
+        }
+
+        upcoming.sort(UPCOMING_ORDER);
+        return upcoming.size() > pageSize ? upcoming.subList(0, pageSize) : upcoming;
+    }
+
+    private List<UpcomingAssignmentDto> aggregateAssignments(String userId, Criteria preFilter, Criteria filter, Integer limit) {
+        List<AggregationOperation> operations = new ArrayList<>(List.of(
+                // The $elemMatch is only a pre-filter on the index; the real filter runs after $unwind
+                Aggregation.match(Criteria.where("userId").is(userId).and("assignments").elemMatch(preFilter)),
+                Aggregation.unwind("assignments"),
+                Aggregation.match(filter),
+                Aggregation.sort(Sort.by("assignments.dueDate"))));
+        if (limit != null) {
+            operations.add(Aggregation.limit(limit));
+        }
+        operations.add(Aggregation.project()
+                .and("id").as("courseId")
+                .and("name").as("courseName")
+                .and("color").as("courseColor")
+                .and("assignments").as("assignment"));
+        TypedAggregation<CourseEntity> aggregation = Aggregation.newAggregation(CourseEntity.class, operations);
+        return mongoTemplate.aggregate(aggregation, UpcomingAssignmentDto.class).getMappedResults();
+    }
+
+    private static Criteria recurringWithin(String prefix, LocalDateTime from, LocalDateTime to) {
+        Criteria recurring = Criteria.where(prefix + "isRecurring").is(true);
+        if (to != null) {
+            recurring.and(prefix + "dueDate").lte(isoDateTime(to));
+        }
+        // recurrenceEndDate may be a bare date, which sorts before any time on the same day
+        return recurring.orOperator(
+                Criteria.where(prefix + "recurrenceEndDate").is(null),
+                Criteria.where(prefix + "recurrenceEndDate").is(""),
+                Criteria.where(prefix + "recurrenceEndDate").gte(from.toLocalDate().toString()));
+    }
+
+    private static UpcomingAssignmentDto withDueDate(UpcomingAssignmentDto series, String dueDate) {
+        AssignmentDto source = series.getAssignment();
+        AssignmentDto occurrence = new AssignmentDto(source.getId(), source.getTitle(), source.getDescription(),
+                dueDate, false, source.getCourseName(), true, source.getRecurrencePattern(), source.getRecurrenceEndDate());
+        UpcomingAssignmentDto upcoming = new UpcomingAssignmentDto();
+        upcoming.setCourseId(series.getCourseId());
+        upcoming.setCourseName(series.getCourseName());
+        upcoming.setCourseColor(series.getCourseColor());
+        upcoming.setAssignment(occurrence);
+        return upcoming;
+    }
+
+    private static Criteria dueUnsubmitted(String prefix, LocalDateTime from, LocalDateTime to) {
+        Criteria due = Criteria.where(prefix + "dueDate").gte(isoDateTime(from));
+        if (to != null) {
+            due.lte(isoDateTime(to));
+        }
+        return due.and(prefix + "submitted").ne(true);
+    }
+
+    // Minute precision when possible, matching how the client writes due dates
+    private static String isoDateTime(LocalDateTime dateTime) {
+        if (dateTime.getSecond() == 0 && dateTime.getNano() == 0) {
+            return dateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"));
+        }
+        return dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    private static AggregationExpression sizeOf(String array) {
+        return context -> new Document("$size", new Document("$ifNull", List.of(array, List.of())));
     }
 
     public CourseEntity saveCourse(CourseEntity course) {
-        return courseRepository.save(course);
+        course.recomputeGradeTotals();
+        Map<String, String> externalContent = detachLongContent(notesOf(course));
+        CourseEntity savedCourse;
+        try {
+            savedCourse = courseRepository.save(course);
+        } catch (OptimisticLockingFailureException e) {
+            // Put the bodies back so the caller can retry with the same course
+            reattachContent(notesOf(course), externalContent);
+            throw e;
+        }
+
+        saveExternalContent(savedCourse.getId(), externalContent);
+        // Drop bodies of notes that are no longer part of the course
+        noteContentRepository.deleteByCourseIdAndNoteIdNotIn(savedCourse.getId(),
+                notesOf(savedCourse).stream().map(NoteDto::getId).toList());
+        reattachContent(notesOf(savedCourse), externalContent);
+
+        eventPublisher.publishEvent(new CourseChangedEvent(savedCourse.getUserId()));
+        return savedCourse;
+    }
+
+    /*
+     * Replaces a course with the given one. With an expected version the update only succeeds against
+     * that version; without one it is saved over whatever version is current, retrying if that changes
+     * between the read and the save. Returns null if the course is not the user's.
+     */
+    public CourseEntity updateCourse(String id, CourseEntity course, String userId, Long expectedVersion) {
+        return optimisticRetry.run("course", expectedVersion, () -> {
+            Query owned = ownedCourse(id, userId);
+            owned.fields().include("version");
+            CourseEntity existing = mongoTemplate.findOne(owned, CourseEntity.class);
+            if (existing == null) {
+                return null;
+            }
+            course.setId(id);
+            course.setUserId(userId);
+            course.setVersion(expectedVersion != null ? expectedVersion : existing.getVersion());
+            return saveCourse(course);
+        });
     }
 
-    public void deleteCourse(String id) {
+    public void deleteCourse(String id, String userId) {
         courseRepository.deleteById(id);
+        noteContentRepository.deleteByCourseId(id);
+        eventPublisher.publishEvent(new CourseChangedEvent(userId));
     }
 
-    public AssignmentDto addAssignment(String courseId, AssignmentDto assignment, String userId) {
-        CourseEntity course = getCourseById(courseId, userId);
+    /*
+     * Pages through a course's embedded lists with $slice, so only the requested items are read back.
+     * The cursor holds the array position to continue from. Returns null if the course is not the user's.
+     */
+
+    public PageDto<NoteDto> getNotesPage(String courseId, String userId, String cursor, Integer limit) {
+        return slicePage(courseId, userId, "notes", CourseEntity::getNotes, cursor, limit);
+    }
+
+    public PageDto<AssignmentDto> getAssignmentsPage(String courseId, String userId, String cursor, Integer limit) {
+        return slicePage(courseId, userId, "assignments", CourseEntity::getAssignments, cursor, limit);
+    }
+
+    public PageDto<GradeDto> getGradesPage(String courseId, String userId, String cursor, Integer limit) {
+        return slicePage(courseId, userId, "grades", CourseEntity::getGrades, cursor, limit);
+    }
+
+    private <T> PageDto<T> slicePage(String courseId, String userId, String field, Function<CourseEntity, List<T>> itemsOf,
+                                     String cursor, Integer limit) {
+        int pageSize = KeysetCursor.pageSize(limit);
+        OffsetCursor after = OffsetCursor.decode(cursor);
+        int offset = after == null ? 0 : after.offset();
+
+        Query query = ownedCourse(courseId, userId);
+        query.fields().slice(field, offset, pageSize + 1);
+        for (String other : List.of("assignments", "notes", "grades")) {
+            if (!other.equals(field)) {
+                query.fields().exclude(other);
+            }
+        }
+        CourseEntity course = mongoTemplate.findOne(query, CourseEntity.class);
         if (course == null) {
-            throw new RuntimeException("Course not found");
+            return null;
         }
 
-        // Generate ID and set timestamps
-        assignment.setId(UUID.randomUUID().toString());
-        assignment.setCourseName(course.getName());
+        List<T> items = itemsOf.apply(course) != null ? itemsOf.apply(course) : List.of();
+        if (items.size() <= pageSize) {
+            return new PageDto<>(items, null);
+        }
+        List<T> page = items.subList(0, pageSize);
+        return new PageDto<>(page, new OffsetCursor(offset + pageSize).encode());
+    }
 
-        course.getAssignments().add(assignment);
-        courseRepository.save(course);
-        return assignment;
+    /*
+     * One note with its full content, or null if the course is not the user's or has no such note.
+     */
+    public NoteDto getNote(String courseId, String noteId, String userId) {
+        Query query = ownedCourse(courseId, userId);
+        query.fields().elemMatch("notes", Criteria.where("_id").is(noteId)).include("_id");
+        CourseEntity course = mongoTemplate.findOne(query, CourseEntity.class);
+        if (course == null || notesOf(course).isEmpty()) {
+            return null;
+        }
+
+        NoteDto note = notesOf(course).get(0);
+        if (Boolean.TRUE.equals(note.getExternalContent())) {
+            noteContentRepository.findByCourseIdAndNoteId(courseId, noteId).ifPresent(content -> note.setContent(content.getContent()));
+        }
+        return note;
     }
 
-    public AssignmentDto toggleAssignmentStatus(String courseId, String assignmentId, String userId) {
-        CourseEntity course = getCourseById(courseId, userId);
-        if (course == null) {
-            throw new RuntimeException("Course not found");
+    private boolean isLongContent(String content) {
+        return externalContentMinLength > 0 && content != null && content.length() >= externalContentMinLength;
+    }
+
+    /*
+     * Moves long bodies out of the notes, returning them by note id. A note that arrives already external
+     * and without content (as served by the notes list) keeps its stored body.
+     *
+     * Note ids come from the client, so a detached note without an id, or with one another note of the
+     * same course already uses, gets a fresh server id; bodies are only ever stored under their course.
+     */
+    private Map<String, String> detachLongContent(List<NoteDto> notes) {
+        Map<String, String> detached = new HashMap<>();
+        Set<String> seenIds = new HashSet<>();
+        for (NoteDto note : notes) {
+            if (isLongContent(note.getContent())) {
+                if (note.getId() == null || seenIds.contains(note.getId())) {
+                    note.setId(UUID.randomUUID().toString());
+                }
+                detached.put(note.getId(), note.getContent());
+                note.setContent(null);
+                note.setExternalContent(true);
+            } else if (note.getContent() != null) {
+                note.setExternalContent(null);
+            }
+            if (note.getId() != null) {
+                seenIds.add(note.getId());
+            }
         }
+        return detached;
+    }
 
-        AssignmentDto assignment = course.getAssignments().stream()
-                .filter(a -> a.getId().equals(assignmentId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+    // Upserts the bodies of one course's notes by (courseId, noteId) in a single bulk write
+    private void saveExternalContent(String courseId, Map<String, String> contentByNoteId) {
+        if (contentByNoteId.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NoteContentEntity.class);
+        contentByNoteId.forEach((noteId, content) -> bulk.upsert(
+                Query.query(Criteria.where("courseId").is(courseId).and("noteId").is(noteId)),
+                new Update().set("content", content)));
+        bulk.execute();
+    }
 
-        assignment.setSubmitted(!assignment.isSubmitted());
-        courseRepository.save(course);
-        return assignment;
+    // A course saved without notes has none rather than a null list
+    private static List<NoteDto> notesOf(CourseEntity course) {
+        return course.getNotes() != null ? course.getNotes() : List.of();
     }
 
-    public NoteDto addNote(String courseId, NoteDto note, String userId) {
-        CourseEntity course = getCourseById(courseId, userId);
+    private static void reattachContent(List<NoteDto> notes, Map<String, String> detached) {
+        for (NoteDto note : notes) {
+            if (detached.containsKey(note.getId())) {
+                note.setContent(detached.get(note.getId()));
+            }
+        }
+    }
+
+    // Fills in externally stored note bodies with one query for all the given courses
+    private void loadExternalContent(List<CourseEntity> courses) {
+        List<String> courseIds = new ArrayList<>();
+        for (CourseEntity course : courses) {
+            if (notesOf(course).stream().anyMatch(note -> Boolean.TRUE.equals(note.getExternalContent()))) {
+                courseIds.add(course.getId());
+            }
+        }
+        if (courseIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> contentById = new HashMap<>();
+        noteContentRepository.findByCourseIdIn(courseIds)
+                .forEach(content -> contentById.put(content.getCourseId() + "/" + content.getNoteId(), content.getContent()));
+        for (CourseEntity course : courses) {
+            for (NoteDto note : notesOf(course)) {
+                if (Boolean.TRUE.equals(note.getExternalContent())) {
+                    note.setContent(contentById.get(course.getId() + "/" + note.getId()));
+                }
+            }
+        }
+    }
+
+    /*
+     * The methods below change one embedded item in a single round trip instead of loading and saving
+     * the whole course. The {_id, userId} filter doubles as the ownership check, and concurrent edits
+     * to the same course no longer overwrite each other.
+     */
+
+    public AssignmentDto addAssignment(String courseId, AssignmentDto assignment, String userId) {
+        assignment.setId(UUID.randomUUID().toString());
+
+        // Written as raw BSON and wrapped in $literal so user text is never read as an expression
+        Document assignmentDocument = new Document();
+        mongoTemplate.getConverter().write(assignment, assignmentDocument);
+        assignmentDocument.remove("_class");
+
+        // Appends the assignment with courseName copied from the course in the same update
+        AggregationExpression appended = context -> new Document("$concatArrays", List.of(
+                new Document("$ifNull", List.of("$assignments", List.of())),
+                List.of(new Document("$mergeObjects", List.of(
+                        new Document("$literal", assignmentDocument),
+                        new Document("courseName", "$name"))))));
+
+        Query owned = ownedCourse(courseId, userId);
+        owned.fields().include("name");
+        CourseEntity course = mongoTemplate.findAndModify(owned,
+                AggregationUpdate.update().set("assignments").toValue(appended).set("version").toValue(NEXT_VERSION),
+                FindAndModifyOptions.options().returnNew(false),
+                CourseEntity.class);
         if (course == null) {
             throw new RuntimeException("Course not found");
         }
 
+        assignment.setCourseName(course.getName());
+        return assignment;
+    }
+
+    public AssignmentDto toggleAssignmentStatus(String courseId, String assignmentId, String userId) {
+        // Flips submitted on the matching element server-side, so two toggles never cancel into one
+        AggregationExpression toggled = context -> new Document("$map", new Document()
+                .append("input", "$assignments")
+                .append("as", "assignment")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$assignment._id", assignmentId)),
+                        new Document("$mergeObjects", List.of("$$assignment",
+                                new Document("submitted", new Document("$not", List.of("$$assignment.submitted"))))),
+                        "$$assignment"))));
+
+        Query owned = ownedCourse(courseId, userId);
+        owned.addCriteria(Criteria.where("assignments._id").is(assignmentId));
+        owned.fields().elemMatch("assignments", Criteria.where("_id").is(assignmentId));
+        CourseEntity course = mongoTemplate.findAndModify(owned,
+                AggregationUpdate.update().set("assignments").toValue(toggled).set("version").toValue(NEXT_VERSION),
+                FindAndModifyOptions.options().returnNew(true),
+                CourseEntity.class);
+        if (course == null || course.getAssignments().isEmpty()) {
+            throw new RuntimeException("Assignment not found");
+        }
+        return course.getAssignments().get(0);
+    }
+
+    public NoteDto addNote(String courseId, NoteDto note, String userId) {
         // Generate ID and set timestamps
         note.setId(UUID.randomUUID().toString());
         note.setDateAdded(LocalDateTime.now().toString());
 
-        course.getNotes().add(note);
-        courseRepository.save(course);
+        Map<String, String> externalContent = detachLongContent(List.of(note));
+        pushToCourse(courseId, userId, "notes", note);
+        // Written after the push so a rejected note leaves nothing behind
+        saveExternalContent(courseId, externalContent);
+        reattachContent(List.of(note), externalContent);
         return note;
     }
 
     public GradeDto addGrade(String courseId, GradeDto grade, String userId) {
-        CourseEntity course = getCourseById(courseId, userId);
-        if (course == null) {
-            throw new RuntimeException("Course not found");
-        }
-
         // Generate ID
         grade.setId(UUID.randomUUID().toString());
 
-        course.getGrades().add(grade);
-        courseRepository.save(course);
+        pushToCourse(courseId, userId, new Update().push("grades", grade)
+                .inc("gradeWeightedSum", grade.getPercentage() * grade.getWeight())
+                .inc("gradeTotalWeight", grade.getWeight()));
         return grade;
     }
+
+    /*
+     * Replaces a grade's title, percentage and weight and adjusts the course totals by the difference.
+     * The update only applies if the grade still has the values the difference was computed from,
+     * so a concurrent edit causes a retry instead of skewing the totals.
+     */
+    public GradeDto updateGrade(String courseId, String gradeId, GradeDto grade, String userId) {
+        return optimisticRetry.run("grade", null, () -> {
+            Query current = ownedCourse(courseId, userId);
+            current.fields().elemMatch("grades", Criteria.where("_id").is(gradeId)).include("_id");
+            CourseEntity course = mongoTemplate.findOne(current, CourseEntity.class);
+            if (course == null || course.getGrades().isEmpty()) {
+                throw new RuntimeException("Grade not found");
+            }
+            GradeDto previous = course.getGrades().get(0);
+
+            Query unchanged = ownedCourse(courseId, userId).addCriteria(Criteria.where("grades").elemMatch(
+                    Criteria.where("_id").is(gradeId)
+                            .and("percentage").is(previous.getPercentage())
+                            .and("weight").is(previous.getWeight())));
+            Update update = new Update()
+                    .set("grades.$.title", grade.getTitle())
+                    .set("grades.$.percentage", grade.getPercentage())
+                    .set("grades.$.weight", grade.getWeight())
+                    .inc("gradeWeightedSum", grade.getPercentage() * grade.getWeight() - previous.getPercentage() * previous.getWeight())
+                    .inc("gradeTotalWeight", grade.getWeight() - previous.getWeight())
+                    .inc("version", 1);
+            if (mongoTemplate.updateFirst(unchanged, update, CourseEntity.class).getMatchedCount() == 0) {
+                throw new OptimisticLockingFailureException("Grade " + gradeId + " was modified concurrently");
+            }
+            grade.setId(gradeId);
+            return grade;
+        });
+    }
+
+    /*
+     * Current and projected marks for every course of the user, read from the stored totals
+     * with one query that leaves out the embedded lists.
+     */
+    public GradesSummaryDto getGradesSummary(String userId) {
+        Query query = Query.query(Criteria.where("userId").is(userId));
+        query.fields().include("name", "code", "color", "gradeWeightedSum", "gradeTotalWeight");
+
+        List<CourseGradeSummaryDto> courses = new ArrayList<>();
+        double averageSum = 0;
+        int averaged = 0;
+        for (CourseEntity course : mongoTemplate.find(query, CourseEntity.class)) {
+            CourseGradeSummaryDto summary = new CourseGradeSummaryDto();
+            summary.setCourseId(course.getId());
+            summary.setName(course.getName());
+            summary.setCode(course.getCode());
+            summary.setColor(course.getColor());
+
+            double totalWeight = course.getGradeTotalWeight();
+            double weightedSum = course.getGradeWeightedSum();
+            summary.setTotalWeight(totalWeight);
+            if (totalWeight > 0) {
+                summary.setCurrentAverage(weightedSum / totalWeight);
+                averageSum += weightedSum / totalWeight;
+                averaged++;
+            }
+            double remainingWeight = Math.max(0, FULL_WEIGHT - totalWeight);
+            summary.setProjectedMinimum(weightedSum / Math.max(FULL_WEIGHT, totalWeight));
+            summary.setProjectedMaximum((weightedSum + remainingWeight * 100) / Math.max(FULL_WEIGHT, totalWeight));
+            courses.add(summary);
+        }
+        return new GradesSummaryDto(courses, averaged > 0 ? averageSum / averaged : null);
+    }
+
+    /*
+     * Fills in the grade totals of courses stored before they existed, computed in the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillGradeTotals() {
+        AggregationExpression grades = context -> new Document("$ifNull", List.of("$grades", List.of()));
+        AggregationExpression weightedSum = context -> new Document("$sum", new Document("$map", new Document()
+                .append("input", grades.toDocument(context))
+                .append("as", "grade")
+                .append("in", new Document("$multiply", List.of("$$grade.percentage", "$$grade.weight")))));
+        AggregationExpression totalWeight = context -> new Document("$sum", new Document("$map", new Document()
+                .append("input", grades.toDocument(context))
+                .append("as", "grade")
+                .append("in", "$$grade.weight")));
+
+        mongoTemplate.updateMulti(Query.query(Criteria.where("gradeTotalWeight").exists(false)),
+                AggregationUpdate.update()
+                        .set("gradeWeightedSum").toValue(weightedSum)
+                        .set("gradeTotalWeight").toValue(totalWeight),
+                CourseEntity.class);
+    }
+
+    private void pushToCourse(String courseId, String userId, String field, Object item) {
+        pushToCourse(courseId, userId, new Update().push(field, item));
+    }
+
+    private void pushToCourse(String courseId, String userId, Update update) {
+        UpdateResult result = mongoTemplate.updateFirst(ownedCourse(courseId, userId), update.inc("version", 1), CourseEntity.class);
+        if (result.getMatchedCount() == 0) {
+            throw new RuntimeException("Course not found");
+        }
+    }
+
+    private static Query ownedCourse(String courseId, String userId) {
+        return Query.query(Criteria.where("_id").is(courseId).and("userId").is(userId));
+    }
 }
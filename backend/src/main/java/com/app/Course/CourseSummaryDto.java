@@ -0,0 +1,22 @@
+package com.app.Course;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * A course for list views: its own fields plus counts of the embedded items, without the items themselves.
+ */
+@Data
+@NoArgsConstructor
+public class CourseSummaryDto {
+    private String id;
+    private String name;
+    private String instructor;
+    private String code;
+    private String schedule;
+    private String color;
+    private int assignmentCount;
+    private int pendingAssignmentCount;
+    private int noteCount;
+    private int gradeCount;
+}
@@ -0,0 +1,19 @@
+package com.app.Course;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ * Grade standing across all of a user's courses. overallAverage is the mean of the
+ * courses' current averages, or null if no course has graded work yet.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradesSummaryDto {
+    private List<CourseGradeSummaryDto> courses;
+    private Double overallAverage;
+}
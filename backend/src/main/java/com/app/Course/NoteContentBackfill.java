@@ -0,0 +1,31 @@
+package com.app.Course;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.Fields;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/*
+ * Note bodies stored before they were keyed by (courseId, noteId) used the note id as their own id.
+ * Copies it into noteId before the web server starts, so no request reads a body by the new key
+ * before it exists.
+ */
+@Component
+public class NoteContentBackfill implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+
+    public NoteContentBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("noteId").exists(false)),
+                AggregationUpdate.update().set("noteId").toValueOf(Fields.field("id")),
+                NoteContentEntity.class);
+    }
+}
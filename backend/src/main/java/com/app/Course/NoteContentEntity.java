@@ -0,0 +1,27 @@
+package com.app.Course;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/*
+ * Body of a long note, kept outside the course document so courses stay small.
+ * Keyed by (courseId, noteId) under a server-generated id: note ids come from the client and are only
+ * unique within their course. The note itself stays embedded in the course with externalContent set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "noteContents")
+// Not unique: bodies stored before noteId existed share a null noteId until NoteContentBackfill runs
+@CompoundIndex(name = "course_note", def = "{ 'courseId': 1, 'noteId': 1 }")
+public class NoteContentEntity {
+    @Id
+    private String id;
+    private String courseId;
+    private String noteId;
+    private String content;
+}
@@ -0,0 +1,19 @@
+package com.app.Course;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteContentRepository extends MongoRepository<NoteContentEntity, String> {
+    List<NoteContentEntity> findByCourseIdIn(Collection<String> courseIds);
+
+    Optional<NoteContentEntity> findByCourseIdAndNoteId(String courseId, String noteId);
+
+    void deleteByCourseId(String courseId);
+
+    void deleteByCourseIdAndNoteIdNotIn(String courseId, Collection<String> noteIds);
+}
@@ -7,6 +7,8 @@ public class NoteDto {
     private String content;
     private String dateAdded;
     private String fileUrl;
+    // True when content is stored in noteContents; list endpoints then leave content out
+    private Boolean externalContent;
 
     public NoteDto() {
     }
@@ -50,4 +52,12 @@ public class NoteDto {
     public void setFileUrl(String fileUrl) {
         this.fileUrl = fileUrl;
     }
+
+    public Boolean getExternalContent() {
+        return externalContent;
+    }
+
+    public void setExternalContent(Boolean externalContent) {
+        this.externalContent = externalContent;
+    }
 }
@@ -0,0 +1,222 @@
+package com.app.Course;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ * A parsed assignment recurrence. Accepts the client's "daily", "weekly" and "monthly" as well as
+ * an RRULE subset: FREQ=DAILY|WEEKLY|MONTHLY with optional INTERVAL, COUNT, UNTIL and, for weekly
+ * rules, BYDAY=MO,WE,... (an "RRULE:" prefix is allowed).
+ *
+ * Occurrences are generated on demand: occurrences(start, from) jumps straight to the period
+ * containing from by arithmetic and then walks forward, so a window late in a long series costs
+ * the same as one at its start. Monthly rules keep the start's day of month, clamped to the end
+ * of shorter months.
+ */
+final class RecurrenceRule {
+
+    enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    private static final DateTimeFormatter RRULE_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter RRULE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Integer count;
+    private final LocalDateTime until;
+    // Sorted Monday first; empty unless a weekly rule names its days
+    private final List<DayOfWeek> byDay;
+
+    private RecurrenceRule(Frequency frequency, int interval, Integer count, LocalDateTime until, List<DayOfWeek> byDay) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.byDay = byDay;
+    }
+
+    /*
+     * Parses a pattern, ending no later than endDate if one is given.
+     * Throws IllegalArgumentException for patterns outside the supported subset.
+     */
+    static RecurrenceRule parse(String pattern, LocalDateTime endDate) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("Missing recurrence pattern");
+        }
+        String rule = pattern.trim().toUpperCase(Locale.ROOT);
+        if (rule.startsWith("RRULE:")) {
+            rule = rule.substring("RRULE:".length());
+        }
+        if (!rule.contains("=")) {
+            return new RecurrenceRule(Frequency.valueOf(rule), 1, null, endDate, List.of());
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDateTime until = endDate;
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String part : rule.split(";")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] keyValue = part.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Malformed recurrence part: " + part);
+            }
+            String value = keyValue[1].trim();
+            switch (keyValue[0].trim()) {
+                case "FREQ" -> frequency = Frequency.valueOf(value);
+                case "INTERVAL" -> interval = Integer.parseInt(value);
+                case "COUNT" -> count = Integer.parseInt(value);
+                case "UNTIL" -> {
+                    LocalDateTime ruleUntil = parseUntil(value);
+                    until = until == null || ruleUntil.isBefore(until) ? ruleUntil : until;
+                }
+                case "BYDAY" -> {
+                    for (String day : value.split(",")) {
+                        days.add(dayOf(day.trim()));
+                    }
+                }
+                case "WKST" -> {
+                    // Weeks always start on Monday
+                }
+                default -> throw new IllegalArgumentException("Unsupported recurrence part: " + part);
+            }
+        }
+        if (frequency == null || interval < 1 || (count != null && count < 1)) {
+            throw new IllegalArgumentException("Invalid recurrence: " + pattern);
+        }
+        if (!days.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY is only supported for weekly recurrences");
+        }
+        return new RecurrenceRule(frequency, interval, count, until, new ArrayList<>(days));
+    }
+
+    private static LocalDateTime parseUntil(String value) {
+        String until = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        try {
+            return until.contains("T") ? LocalDateTime.parse(until, RRULE_DATE_TIME)
+                    : LocalDate.parse(until, RRULE_DATE).atTime(23, 59, 59);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid UNTIL: " + value, e);
+        }
+    }
+
+    private static DayOfWeek dayOf(String day) {
+        for (DayOfWeek candidate : DayOfWeek.values()) {
+            if (candidate.name().startsWith(day) && day.length() == 2) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Invalid BYDAY value: " + day);
+    }
+
+    /*
+     * Occurrences of a series starting at start, from the first one at or after from, in order.
+     * The iterator is unbounded when the rule has no COUNT or UNTIL; callers stop at their window's end.
+     */
+    Iterator<LocalDateTime> occurrences(LocalDateTime start, LocalDateTime from) {
+        return new OccurrenceIterator(start, from);
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDateTime> {
+
+        private final LocalDateTime start;
+        private final LocalDateTime from;
+        // Monday of the start's week, which weekly BYDAY periods count from
+        private final LocalDateTime anchor;
+        private long period;
+        private int slot;
+        // Occurrences before the current position, for COUNT
+        private long seen;
+        private LocalDateTime next;
+
+        OccurrenceIterator(LocalDateTime start, LocalDateTime from) {
+            this.start = start;
+            this.from = from.isBefore(start) ? start : from;
+            this.anchor = byDay.isEmpty() ? start : start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+            // Jump to the last period beginning at or before from; advance() walks the rest of the way
+            long elapsed = switch (frequency) {
+                case DAILY -> ChronoUnit.DAYS.between(anchor, this.from);
+                case WEEKLY -> ChronoUnit.WEEKS.between(anchor, this.from);
+                case MONTHLY -> ChronoUnit.MONTHS.between(anchor, this.from);
+            };
+            this.period = Math.max(0, elapsed / interval);
+            this.seen = occurrencesBefore(period);
+            this.next = advance();
+        }
+
+        private long occurrencesBefore(long period) {
+            if (period == 0 || byDay.isEmpty()) {
+                return period;
+            }
+            long inFirstPeriod = byDay.stream().filter(day -> !candidate(0, day).isBefore(start)).count();
+            return inFirstPeriod + (period - 1) * byDay.size();
+        }
+
+        private LocalDateTime candidate(long period, DayOfWeek day) {
+            return anchor.plusWeeks(period * interval).plusDays(day.getValue() - 1L);
+        }
+
+        private LocalDateTime advance() {
+            while (count == null || seen < count) {
+                LocalDateTime candidate;
+                if (byDay.isEmpty()) {
+                    candidate = switch (frequency) {
+                        case DAILY -> start.plusDays(period * interval);
+                        case WEEKLY -> start.plusWeeks(period * interval);
+                        case MONTHLY -> start.plusMonths(period * interval);
+                    };
+                    period++;
+                } else {
+                    candidate = candidate(period, byDay.get(slot));
+                    if (++slot == byDay.size()) {
+                        slot = 0;
+                        period++;
+                    }
+                    if (candidate.isBefore(start)) {
+                        continue;
+                    }
+                }
+
+                if (until != null && candidate.isAfter(until)) {
+                    return null;
+                }
+                seen++;
+                if (!candidate.isBefore(from)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public LocalDateTime next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            LocalDateTime current = next;
+            next = advance();
+            return current;
+        }
+    }
+}
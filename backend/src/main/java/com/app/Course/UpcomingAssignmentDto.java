@@ -0,0 +1,16 @@
+package com.app.Course;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * An assignment due soon, with the course it belongs to.
+ */
+@Data
+@NoArgsConstructor
+public class UpcomingAssignmentDto {
+    private String courseId;
+    private String courseName;
+    private String courseColor;
+    private AssignmentDto assignment;
+}
@@ -0,0 +1,18 @@
+package com.app.Dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * One page of a keyset-paginated listing. nextCursor is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageDto<T> {
+
+    private List<T> items;
+    private String nextCursor;
+}
@@ -8,6 +8,7 @@ public class SectionDto {
     private String sectionName;
     private String sectionColour; // TODO: should not be a string?
     // TODO: should there be a section description?
+    private Long version;
 
     public SectionDto() {
     }
@@ -2,6 +2,7 @@
 package com.app.Dto;
 
 import java.util.List;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 @Data
@@ -15,4 +16,8 @@ public class TutorPostingDto {
     private double pricePerHour;
     private String contactEmail;
     private String university;
+
+    // Only filled in when the posting list is requested with expand=profile
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private TutorProfileDto profile;
 }
@@ -0,0 +1,30 @@
+package com.app.Dto;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Posting counts for the marketplace filter panel. Each facet is counted with every other
+ * selected filter applied but not its own, so the panel can show counts for alternative choices.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TutorPostingFacetsDto {
+    private int total;
+    private Map<String, Integer> universities;
+    private Map<String, Integer> locations;
+    private List<PriceBucketDto> priceBuckets;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PriceBucketDto {
+        private Double min; // inclusive, null for the first bucket
+        private Double max; // exclusive, null for the last bucket
+        private int count;
+    }
+}
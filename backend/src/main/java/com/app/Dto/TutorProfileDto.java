@@ -15,4 +15,5 @@ public class TutorProfileDto {
     private String bio;
     private List<String> expertise;
     private String createdAt;
+    private Long version;
 }
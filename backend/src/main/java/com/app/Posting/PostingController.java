@@ -1,12 +1,12 @@
 package com.app.Posting;
 
 import com.Application;
-import com.app.security.JWTAuthenticationFilter;
-import com.app.security.JWTGenerator;
-
-import jakarta.servlet.http.HttpServletRequest;
+import com.app.common.ETags;
+import com.app.security.CurrentUserId;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,10 +19,6 @@ public class PostingController {
 
     private final Application application;
 
-    // JWT Generator
-    @Autowired
-    JWTGenerator jwt;
-
     @Autowired
     private PostingService postingService;
 
@@ -36,7 +32,9 @@ public class PostingController {
         @RequestParam(required = false) String course,
         @RequestParam(required = false) String location,
         @RequestParam(required = false) Double minPrice,
-        @RequestParam(required = false) Double maxPrice) {
+        @RequestParam(required = false) Double maxPrice,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit) {
         
         // Verify if title is passed, it is not empty
         if (title != null && title.isEmpty()) {
@@ -63,6 +61,15 @@ public class PostingController {
             return new ResponseEntity<>("Max Price must not be negative and be greater than Min Price", HttpStatus.BAD_REQUEST);
         }
         
+        // Paginated when a limit is given, ordered by (pricePerHour, id)
+        if (limit != null) {
+            try {
+                return new ResponseEntity<>(postingService.getPostingPage(title, course, location, minPrice, maxPrice, cursor, limit), HttpStatus.OK);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>("Invalid cursor", HttpStatus.BAD_REQUEST);
+            }
+        }
+
         List<PostingEntity> posting = postingService.getAllPosting(title, course, location, minPrice, maxPrice);
         return new ResponseEntity<>(posting, HttpStatus.OK);
     }
@@ -71,19 +78,15 @@ public class PostingController {
     public ResponseEntity<PostingEntity> getPostingById(@PathVariable String id) {
         PostingEntity posting = postingService.getPostingById(id);
         if (posting != null) {
-            return new ResponseEntity<>(posting, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(ETags.of(posting.getVersion())).body(posting);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 
     @PostMapping
-    public ResponseEntity<?> createPosting(HttpServletRequest request, @RequestBody PostingEntity posting) {
+    public ResponseEntity<?> createPosting(@CurrentUserId String userID, @RequestBody PostingEntity posting) {
         try {
-
-            String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-            String userID = jwt.getUserIdFromJWT(token);
-
             // Set tutor id from jwt
             posting.setTutorId(userID);
             
@@ -107,10 +110,17 @@ public class PostingController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<PostingEntity> updatePosting(@PathVariable String id, @RequestBody PostingEntity posting) {
+    public ResponseEntity<PostingEntity> updatePosting(@PathVariable String id, @RequestBody PostingEntity posting,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            PostingEntity updatedPosting = postingService.updatePosting(id, posting);
-            return new ResponseEntity<>(updatedPosting, HttpStatus.OK);
+            Long expectedVersion = ETags.parseIfMatch(ifMatch);
+            PostingEntity updatedPosting = postingService.updatePosting(id, posting, expectedVersion);
+            return ResponseEntity.ok().eTag(ETags.of(updatedPosting.getVersion())).body(updatedPosting);
+        } catch (OptimisticLockingFailureException e) {
+            // Stale If-Match, or still conflicting after the retries
+            return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -1,10 +1,27 @@
 package com.app.Posting;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.query.Collation;
 
 @Document
+@CompoundIndexes({
+    @CompoundIndex(name = "course_location_price",
+            def = "{ 'coursesTaught': 1, 'location': 1, 'pricePerHour': 1 }",
+            collation = "{ 'locale': 'en', 'strength': 2 }"),
+    // Keyset pagination order
+    @CompoundIndex(name = "price_id",
+            def = "{ 'pricePerHour': 1, '_id': 1 }",
+            collation = "{ 'locale': 'en', 'strength': 2 }")
+})
 public class PostingEntity {
+
+    // Case-insensitive comparison used by posting queries; must match the index collation above
+    public static final Collation CASE_INSENSITIVE = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
     @Id
     private String id;
     private String tutorId;
@@ -14,6 +31,9 @@ public class PostingEntity {
     private String location; // online or in person
     private double pricePerHour;
     private String contactEmail; // retrieved from Tutor's record
+    // Optimistic locking; also served as the ETag
+    @Version
+    private Long version;
 
     // No-argument constructor
     public PostingEntity() {}
@@ -92,4 +112,12 @@ public class PostingEntity {
     public void setContactEmail(String contactEmail) {
         this.contactEmail = contactEmail;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -1,14 +1,22 @@
 package com.app.Posting;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
+import com.app.Dto.PageDto;
 import com.app.Tutor.TutorEntity;
 import com.app.Tutor.TutorService;
 import com.app.User.UserEntity;
 import com.app.User.UserService;
-import java.util.Arrays;
+import com.app.common.KeysetCursor;
+import com.app.common.OptimisticRetry;
+import com.app.common.SingleFlight;
+import com.app.common.SingleFlightFactory;
 
 @Service
 public class PostingService {
@@ -22,23 +30,67 @@ public class PostingService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    // Coalesces concurrent reads of the same posting
+    private final SingleFlight<String, PostingEntity> postingsById;
+
+    public PostingService(SingleFlightFactory singleFlightFactory) {
+        this.postingsById = singleFlightFactory.create("postingsById");
+    }
+
+    /*
+     * Filters postings in the database. Course and location are compared case-insensitively
+     * through the collation, which matches the one on PostingEntity's compound index.
+     */
     public List<PostingEntity> getAllPosting(String title, String course, String location, Double minPrice, Double maxPrice) {
-        List<PostingEntity> postings = postingRepository.findAll();
-
-        // Filter postings based on the provided criteria
-        return postings.stream()
-            .filter(posting -> (title == null || posting.getTitle().toLowerCase().contains(title.toLowerCase())) &&
-                              (course == null || posting.getCoursesTaught() != null && 
-                              Arrays.stream(posting.getCoursesTaught())
-                              .anyMatch(c -> c.equalsIgnoreCase(course))) &&
-                              (location == null || posting.getLocation().equalsIgnoreCase(location)) &&
-                              (minPrice == null || posting.getPricePerHour() >= minPrice) &&
-                              (maxPrice == null || posting.getPricePerHour() <= maxPrice))
-            .toList();
+        Query query = Query.query(filterCriteria(title, course, location, minPrice, maxPrice)).collation(PostingEntity.CASE_INSENSITIVE);
+        return mongoTemplate.find(query, PostingEntity.class);
+    }
+
+    /*
+     * Same filter as getAllPosting, one keyset page at a time ordered by (pricePerHour, id).
+     */
+    public PageDto<PostingEntity> getPostingPage(String title, String course, String location, Double minPrice, Double maxPrice,
+                                                 String cursor, Integer limit) {
+        int pageSize = KeysetCursor.pageSize(limit);
+        Query query = KeysetCursor.pageQuery(filterCriteria(title, course, location, minPrice, maxPrice),
+                "pricePerHour", KeysetCursor.decode(cursor), pageSize)
+            .collation(PostingEntity.CASE_INSENSITIVE);
+        return KeysetCursor.toPage(mongoTemplate.find(query, PostingEntity.class), pageSize,
+            posting -> new KeysetCursor(posting.getPricePerHour(), posting.getId()), posting -> posting);
+    }
+
+    private Criteria filterCriteria(String title, String course, String location, Double minPrice, Double maxPrice) {
+        Criteria criteria = new Criteria();
+
+        if (course != null) {
+            criteria.and("coursesTaught").is(course);
+        }
+        if (location != null) {
+            criteria.and("location").is(location);
+        }
+        if (minPrice != null || maxPrice != null) {
+            Criteria price = criteria.and("pricePerHour");
+            if (minPrice != null) {
+                price.gte(minPrice);
+            }
+            if (maxPrice != null) {
+                price.lte(maxPrice);
+            }
+        }
+        if (title != null) {
+            criteria.and("title").regex(Pattern.quote(title), "i");
+        }
+        return criteria;
     }
 
     public PostingEntity getPostingById(String id) {
-        return postingRepository.findById(id).orElse(null);
+        return postingsById.get(id, key -> postingRepository.findById(key).orElse(null));
     }
 
     public PostingEntity createPosting(PostingEntity posting) {
@@ -50,13 +102,24 @@ public class PostingService {
         }
         // Retrieve and set the contact email from the tutor's record
         posting.setContactEmail(user.getUsername());
+        posting.setVersion(null);
         return postingRepository.save(posting);
     }
 
-    public PostingEntity updatePosting(String id, PostingEntity posting) {
-        Optional<PostingEntity> optionalPosting = postingRepository.findById(id);
-        if (optionalPosting.isPresent()) {
+    /*
+     * With an expected version the update only succeeds against that version;
+     * without one a concurrent edit is retried on the fresh posting.
+     */
+    public PostingEntity updatePosting(String id, PostingEntity posting, Long expectedVersion) {
+        PostingEntity savedPosting = optimisticRetry.run("posting", expectedVersion, () -> {
+            Optional<PostingEntity> optionalPosting = postingRepository.findById(id);
+            if (optionalPosting.isEmpty()) {
+                throw new RuntimeException("Posting not found with id: " + id);
+            }
             PostingEntity existingPosting = optionalPosting.get();
+            if (expectedVersion != null) {
+                existingPosting.setVersion(expectedVersion);
+            }
             existingPosting.setTutorId(posting.getTutorId());
             existingPosting.setTitle(posting.getTitle());
             existingPosting.setCoursesTaught(posting.getCoursesTaught());
@@ -65,11 +128,13 @@ public class PostingService {
             existingPosting.setPricePerHour(posting.getPricePerHour());
             
             return postingRepository.save(existingPosting);
-        }
-        throw new RuntimeException("Posting not found with id: " + id);
+        });
+        postingsById.invalidate(id);
+        return savedPosting;
     }
 
     public void deletePosting(String id) {
         postingRepository.deleteById(id);
+        postingsById.invalidate(id);
     }
 }
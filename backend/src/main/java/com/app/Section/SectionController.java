@@ -1,15 +1,14 @@
 package com.app.Section;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.app.Dto.*;
-import com.app.security.JWTGenerator;
-
-import jakarta.servlet.http.HttpServletRequest;
-
-import com.app.security.JWTAuthenticationFilter;
+import com.app.common.ETags;
+import com.app.security.CurrentUserId;
 
 
 import java.util.List;
@@ -19,51 +18,50 @@ import java.util.List;
 public class SectionController {
     private final SectionService sectionService;
 
-    // JWT Generator
-    JWTGenerator jwt;
-
-    public SectionController(SectionService sectionService, JWTGenerator jwt) {
+    public SectionController(SectionService sectionService) {
         this.sectionService = sectionService;
-        this.jwt = jwt;
     }
 
     // get request to get all sections for that user
     @GetMapping
-    public List<SectionDto> getAllSections(HttpServletRequest request) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
+    public List<SectionDto> getAllSections(@CurrentUserId String userID) {
         return sectionService.getAllSections(userID);
     }
 
     // get request to get a section by id
     @GetMapping("/{id}")
-    public SectionDto getSectionById(HttpServletRequest request, @PathVariable String id) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        return sectionService.getSectionById(userID, id);
+    public ResponseEntity<SectionDto> getSectionById(@CurrentUserId String userID, @PathVariable String id) {
+        SectionDto sectionDto = sectionService.getSectionById(userID, id);
+        if (sectionDto == null) {
+            return ResponseEntity.ok(null);
+        }
+        return ResponseEntity.ok().eTag(ETags.of(sectionDto.getVersion())).body(sectionDto);
     }
 
     // post request to add a section
     @PostMapping
-    public ResponseEntity<SectionDto> addSection(HttpServletRequest request, @RequestBody SectionDto sectionDto) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
+    public ResponseEntity<SectionDto> addSection(@CurrentUserId String userID, @RequestBody SectionDto sectionDto) {
         return new ResponseEntity<>(sectionService.addSection(userID, sectionDto), HttpStatus.CREATED);
     }
 
     // put request to update a section
     @PatchMapping
-    public ResponseEntity<SectionDto> updateSection(HttpServletRequest request, @RequestBody SectionDto sectionDto) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        return new ResponseEntity<>(sectionService.updateSection(userID, sectionDto), HttpStatus.OK);
+    public ResponseEntity<SectionDto> updateSection(@CurrentUserId String userID, @RequestBody SectionDto sectionDto,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            SectionDto updatedSection = sectionService.updateSection(userID, sectionDto, ETags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(ETags.of(updatedSection.getVersion())).body(updatedSection);
+        } catch (OptimisticLockingFailureException e) {
+            // Stale If-Match, or still conflicting after the retries
+            return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
     }
 
     // delete request to delete a section
     @DeleteMapping("/{id}")
-    public void deleteSection(HttpServletRequest request, @PathVariable String id) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
+    public void deleteSection(@CurrentUserId String userID, @PathVariable String id) {
         sectionService.deleteSection(userID, id);
     }
 
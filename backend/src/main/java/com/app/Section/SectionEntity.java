@@ -1,6 +1,7 @@
 package com.app.Section;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +15,9 @@ public class SectionEntity {
     private String userID;
     private String sectionName;
     private String sectionColour;
+    // Optimistic locking; also served as the ETag
+    @Version
+    private Long version;
 
     public String getSectionId() {
         return sectionId;
@@ -1,6 +1,7 @@
 package com.app.Section;
 
 import com.app.Dto.*;
+import com.app.common.OptimisticRetry;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -10,9 +11,11 @@ import java.util.stream.Collectors;
 public class SectionService {
 
     private final SectionRepository sectionRepository;
+    private final OptimisticRetry optimisticRetry;
 
-    public SectionService(SectionRepository sectionRepository) {
+    public SectionService(SectionRepository sectionRepository, OptimisticRetry optimisticRetry) {
         this.sectionRepository = sectionRepository;
+        this.optimisticRetry = optimisticRetry;
     }
 
     public List<SectionDto> getAllSections(String userID) {
@@ -35,24 +38,33 @@ public class SectionService {
         return toDTO(savedEntity);
     }
 
-    public SectionDto updateSection(String userID, SectionDto sectionDto) {
-        Optional<SectionEntity> optional_Entity = sectionRepository.findByUserIDAndSectionId(userID, sectionDto.getSectionID());
-
-        if (optional_Entity.isPresent()) {
-            SectionEntity sectionEntity = optional_Entity.get();
-            
-            if (sectionDto.getSectionName() != null) {
-                sectionEntity.setSectionName(sectionDto.getSectionName());
+    /*
+     * With an expected version the update only succeeds against that version;
+     * without one a concurrent edit is retried on the fresh section.
+     */
+    public SectionDto updateSection(String userID, SectionDto sectionDto, Long expectedVersion) {
+        return optimisticRetry.run("section", expectedVersion, () -> {
+            Optional<SectionEntity> optional_Entity = sectionRepository.findByUserIDAndSectionId(userID, sectionDto.getSectionID());
+
+            if (optional_Entity.isPresent()) {
+                SectionEntity sectionEntity = optional_Entity.get();
+                if (expectedVersion != null) {
+                    sectionEntity.setVersion(expectedVersion);
+                }
+                
+                if (sectionDto.getSectionName() != null) {
+                    sectionEntity.setSectionName(sectionDto.getSectionName());
+                }
+                
+                if (sectionDto.getSectionColour() != null) {
+                    sectionEntity.setSectionColour(sectionDto.getSectionColour());
+                }
+                
+                return toDTO(sectionRepository.save(sectionEntity));
+            } else {
+                return new SectionDto();
             }
-            
-            if (sectionDto.getSectionColour() != null) {
-                sectionEntity.setSectionColour(sectionDto.getSectionColour());
-            }
-            
-            return toDTO(sectionRepository.save(sectionEntity));
-        } else {
-            return new SectionDto();
-        }
+        });
     }
 
     public void deleteSection(String userID, String id) {
@@ -75,11 +87,13 @@ public class SectionService {
     }
 
     private SectionDto toDTO(SectionEntity sectionEntity) {
-        return new SectionDto(
+        SectionDto sectionDto = new SectionDto(
             sectionEntity.getSectionId(),
             sectionEntity.getSectionName(),
             sectionEntity.getSectionColour()
         );
+        sectionDto.setVersion(sectionEntity.getVersion());
+        return sectionDto;
     }
 
 }
@@ -1,27 +1,35 @@
 
 package com.app.Tutor;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.app.Dto.*;
-import com.app.security.JWTAuthenticationFilter;
-import com.app.security.JWTGenerator;
-
-import jakarta.servlet.http.HttpServletRequest;
+import com.app.common.ETags;
+import com.app.common.NdjsonStreams;
+import com.app.security.CurrentUserId;
 
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
 
 @RestController
 @RequestMapping("api/Tutor")
 public class TutorController {
     private final TutorService tutorService;
-    JWTGenerator jwt;
+    private final TutorRecommendationService recommendationService;
+    private final NdjsonStreams ndjsonStreams;
 
-    public TutorController(TutorService tutorService, JWTGenerator jwt) {
+    public TutorController(TutorService tutorService, TutorRecommendationService recommendationService, NdjsonStreams ndjsonStreams) {
         this.tutorService = tutorService;
-        this.jwt = jwt;
+        this.recommendationService = recommendationService;
+        this.ndjsonStreams = ndjsonStreams;
     }
 
     // Original tutor endpoints
@@ -30,41 +38,73 @@ public class TutorController {
         return tutorService.getAllTutors();
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTutors() {
+        return ndjsonStreams.stream(tutorService::streamAllTutors, tutor -> tutor);
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<PageDto<TutorEntity>> getTutorsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam Integer limit) {
+        try {
+            return new ResponseEntity<>(tutorService.getTutorsPage(cursor, limit), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Postings for the current student's courses, ranked by course overlap, price and recency
+    @GetMapping("/recommendations")
+    public ResponseEntity<List<TutorPostingDto>> getRecommendations(
+            @CurrentUserId String userID,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return new ResponseEntity<>(recommendationService.getRecommendations(userID, limit), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
     @GetMapping("/{id}")
     public TutorEntity getTutorById(@PathVariable String id) {
         return tutorService.getTutorById(id);
     }
 
     @PostMapping
-    public ResponseEntity<TutorEntity> addTutor(HttpServletRequest request, @RequestBody TutorDto tutorDto) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
+    public ResponseEntity<TutorEntity> addTutor(@CurrentUserId String userID, @RequestBody TutorDto tutorDto) {
         return new ResponseEntity<>(tutorService.addTutor(userID, tutorDto), HttpStatus.CREATED);
     }
 
     @PatchMapping
-    public ResponseEntity<TutorEntity> updateTutor(HttpServletRequest request, @RequestBody TutorDto tutorDto) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
+    public ResponseEntity<TutorEntity> updateTutor(@CurrentUserId String userID, @RequestBody TutorDto tutorDto) {
         return new ResponseEntity<>(tutorService.updateTutor(userID, tutorDto), HttpStatus.OK);
     }
 
     @DeleteMapping()
-    public void deleteTutor(HttpServletRequest request) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
+    public void deleteTutor(@CurrentUserId String userID) {
         tutorService.deleteTutor(userID);
     }
+
+    // Add or remove a single student, post or review id on the current tutor
+    @PostMapping("/{list:students|posts|reviews}/{itemId}")
+    public ResponseEntity<Void> addToTutorList(@CurrentUserId String userID, @PathVariable String list, @PathVariable String itemId) {
+        boolean found = tutorService.addToTutorList(userID, TutorListField.fromPath(list), itemId);
+        return new ResponseEntity<>(found ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+    }
+
+    @DeleteMapping("/{list:students|posts|reviews}/{itemId}")
+    public ResponseEntity<Void> removeFromTutorList(@CurrentUserId String userID, @PathVariable String list, @PathVariable String itemId) {
+        boolean found = tutorService.removeFromTutorList(userID, TutorListField.fromPath(list), itemId);
+        return new ResponseEntity<>(found ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+    }
     
     // Tutor Profile endpoints
     
     @PostMapping("/profile")
     public ResponseEntity<TutorProfileDto> createTutorProfile(
-            HttpServletRequest request, 
+            @CurrentUserId String userID, 
             @RequestBody TutorProfileDto profileDto) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        
         try {
             TutorProfileDto createdProfile = tutorService.createTutorProfile(userID, profileDto);
             return new ResponseEntity<>(createdProfile, HttpStatus.CREATED);
@@ -74,23 +114,30 @@ public class TutorController {
     }
     
     @GetMapping("/profile")
-    public ResponseEntity<TutorProfileDto> getTutorProfile(HttpServletRequest request) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        
+    public ResponseEntity<TutorProfileDto> getTutorProfile(@CurrentUserId String userID) {
         TutorProfileDto profile = tutorService.getTutorProfileByUserId(userID);
         if (profile != null) {
-            return new ResponseEntity<>(profile, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(ETags.of(profile.getVersion())).body(profile);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
     
+    // Profiles for many users in one request, keyed by user id; users without a profile are omitted
+    @PostMapping("/profile/batch")
+    public ResponseEntity<Map<String, TutorProfileDto>> getTutorProfilesByUserIds(@RequestBody List<String> userIds) {
+        try {
+            return new ResponseEntity<>(tutorService.getTutorProfilesByUserIds(userIds), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
     @GetMapping("/profile/{userId}")
     public ResponseEntity<TutorProfileDto> getTutorProfileByUserId(@PathVariable String userId) {
         TutorProfileDto profile = tutorService.getTutorProfileByUserId(userId);
         if (profile != null) {
-            return new ResponseEntity<>(profile, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(ETags.of(profile.getVersion())).body(profile);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -98,14 +145,18 @@ public class TutorController {
     
     @PatchMapping("/profile")
     public ResponseEntity<TutorProfileDto> updateTutorProfile(
-            HttpServletRequest request, 
-            @RequestBody TutorProfileDto profileDto) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        
+            @CurrentUserId String userID, 
+            @RequestBody TutorProfileDto profileDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            TutorProfileDto updatedProfile = tutorService.updateTutorProfile(userID, profileDto);
-            return new ResponseEntity<>(updatedProfile, HttpStatus.OK);
+            Long expectedVersion = ETags.parseIfMatch(ifMatch);
+            TutorProfileDto updatedProfile = tutorService.updateTutorProfile(userID, profileDto, expectedVersion);
+            return ResponseEntity.ok().eTag(ETags.of(updatedProfile.getVersion())).body(updatedProfile);
+        } catch (OptimisticLockingFailureException e) {
+            // Stale If-Match, or still conflicting after the retries
+            return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -115,11 +166,8 @@ public class TutorController {
     
     @PostMapping("/posting")
     public ResponseEntity<TutorPostingDto> createTutorPosting(
-            HttpServletRequest request, 
+            @CurrentUserId String userID, 
             @RequestBody TutorPostingDto postingDto) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        
         try {
             TutorPostingDto createdPosting = tutorService.createTutorPosting(userID, postingDto);
             return new ResponseEntity<>(createdPosting, HttpStatus.CREATED);
@@ -128,11 +176,54 @@ public class TutorController {
         }
     }
     
+    // Posting lists accept expand=profile to include each tutor's profile in the same response
+    
     @GetMapping("/posting")
-    public List<TutorPostingDto> getAllTutorPostings() {
+    public List<TutorPostingDto> getAllTutorPostings(@RequestParam(required = false) String expand) {
+        if (expandsProfile(expand)) {
+            return tutorService.getAllTutorPostingsWithProfiles();
+        }
         return tutorService.getAllTutorPostings();
     }
     
+    @GetMapping(value = "/posting", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTutorPostings(@RequestParam(required = false) String expand) {
+        // Profiles are looked up per written chunk, one $in query each
+        UnaryOperator<List<TutorPostingDto>> enrichChunk = expandsProfile(expand) ? tutorService::attachProfiles : chunk -> chunk;
+        return ndjsonStreams.stream(tutorService::streamAllTutorPostings, posting -> posting, enrichChunk);
+    }
+    
+    @GetMapping(value = "/posting", params = "limit")
+    public ResponseEntity<PageDto<TutorPostingDto>> getTutorPostingsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String expand) {
+        try {
+            PageDto<TutorPostingDto> page = expandsProfile(expand)
+                ? tutorService.getTutorPostingsPageWithProfiles(cursor, limit)
+                : tutorService.getTutorPostingsPage(cursor, limit);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
+    @GetMapping("/posting/search")
+    public ResponseEntity<List<TutorPostingDto>> searchTutorPostings(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String expand) {
+        if (q.isBlank()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            List<TutorPostingDto> postings = tutorService.searchTutorPostings(q, limit);
+            return new ResponseEntity<>(expandsProfile(expand) ? tutorService.attachProfiles(postings) : postings, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+    
     @GetMapping("/posting/{id}")
     public ResponseEntity<TutorPostingDto> getTutorPostingById(@PathVariable String id) {
         TutorPostingDto posting = tutorService.getTutorPostingById(id);
@@ -143,16 +234,71 @@ public class TutorController {
         }
     }
     
+    @PatchMapping("/posting/{id}")
+    public ResponseEntity<TutorPostingDto> updateTutorPosting(
+            @CurrentUserId String userID,
+            @PathVariable String id,
+            @RequestBody TutorPostingDto postingDto) {
+        try {
+            return new ResponseEntity<>(tutorService.updateTutorPosting(userID, id, postingDto), HttpStatus.OK);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+    }
+
+    @DeleteMapping("/posting/{id}")
+    public ResponseEntity<Void> deleteTutorPosting(@CurrentUserId String userID, @PathVariable String id) {
+        try {
+            tutorService.deleteTutorPosting(userID, id);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+    }
+    
     @GetMapping("/posting/user")
-    public List<TutorPostingDto> getCurrentUserTutorPostings(HttpServletRequest request) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        
+    public List<TutorPostingDto> getCurrentUserTutorPostings(@CurrentUserId String userID) {
         return tutorService.getTutorPostingsByUserId(userID);
     }
     
     @PostMapping("/posting/filter")
-    public List<TutorPostingDto> filterTutorPostings(@RequestBody TutorFilterDto filterDto) {
-        return tutorService.filterTutorPostings(filterDto);
+    public List<TutorPostingDto> filterTutorPostings(@RequestBody TutorFilterDto filterDto,
+                                                     @RequestParam(required = false) String expand) {
+        List<TutorPostingDto> postings = tutorService.filterTutorPostings(filterDto);
+        return expandsProfile(expand) ? tutorService.attachProfiles(postings) : postings;
+    }
+
+    @PostMapping(value = "/posting/filter", params = "limit")
+    public ResponseEntity<PageDto<TutorPostingDto>> filterTutorPostingsPage(
+            @RequestBody TutorFilterDto filterDto,
+            @RequestParam(required = false) String cursor,
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String expand) {
+        try {
+            PageDto<TutorPostingDto> page = tutorService.filterTutorPostingsPage(filterDto, cursor, limit);
+            if (expandsProfile(expand)) {
+                tutorService.attachProfiles(page.getItems());
+            }
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/posting/facets")
+    public ResponseEntity<TutorPostingFacetsDto> getTutorPostingFacets(@RequestBody TutorFilterDto filterDto) {
+        try {
+            return new ResponseEntity<>(tutorService.getTutorPostingFacets(filterDto), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    private static boolean expandsProfile(String expand) {
+        return "profile".equals(expand);
     }
 }
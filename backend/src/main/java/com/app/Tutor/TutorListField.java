@@ -0,0 +1,31 @@
+package com.app.Tutor;
+
+/*
+ * Id lists on TutorEntity that can be changed one item at a time.
+ */
+public enum TutorListField {
+    STUDENTS("students", "student_id_list"),
+    POSTS("posts", "post_id_list"),
+    REVIEWS("reviews", "review_id_list");
+
+    private final String path;
+    private final String field;
+
+    TutorListField(String path, String field) {
+        this.path = path;
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public static TutorListField fromPath(String path) {
+        for (TutorListField list : values()) {
+            if (list.path.equals(path)) {
+                return list;
+            }
+        }
+        throw new IllegalArgumentException("Unknown tutor list: " + path);
+    }
+}
@@ -3,11 +3,20 @@ package com.app.Tutor;
 
 import java.util.List;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Document(collection = "tutorPostings")
+@CompoundIndexes({
+    @CompoundIndex(name = "university_location_price", def = "{ 'university': 1, 'location': 1, 'pricePerHour': 1 }"),
+    @CompoundIndex(name = "location_price", def = "{ 'location': 1, 'pricePerHour': 1 }"),
+    @CompoundIndex(name = "courses", def = "{ 'coursesTaught': 1 }"),
+    // Keyset pagination order
+    @CompoundIndex(name = "price_id", def = "{ 'pricePerHour': 1, '_id': 1 }")
+})
 @Data
 @NoArgsConstructor
 public class TutorPostingEntity {
@@ -0,0 +1,467 @@
+package com.app.Tutor;
+
+import com.app.Dto.TutorFilterDto;
+import com.app.Dto.TutorPostingFacetsDto;
+import com.app.common.KeysetCursor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * In-memory index of tutor postings used to answer filter requests without scanning the collection.
+ *
+ * Every posting gets a slot number and each filter dimension maps to a BitSet of slots:
+ *  - courses: every 1-, 2- and 3-character substring of each lowercased course code, so a
+ *    "contains" query is answered by intersecting the query's trigrams and verifying the few candidates
+ *  - university and location: exact value to slots
+ *  - price: a sorted primitive array, rebuilt lazily after writes, searched with binary search
+ *
+ * The index is filled by TutorService on startup and kept in sync on posting create, update and delete.
+ * A periodic rebuild compacts slots freed by deletes and picks up writes made by other instances.
+ */
+@Component
+public class TutorPostingIndex extends TutorPostingIndexSupport<TutorPostingIndex.State> {
+
+    private static final int MAX_GRAM = 3;
+
+    @Override
+    protected State newState() {
+        return new State();
+    }
+
+    @Override
+    protected void put(State state, TutorPostingEntity posting) {
+        state.put(posting);
+    }
+
+    @Override
+    protected void remove(State state, String id) {
+        state.remove(id);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the postings matching the filter with the same semantics as the original scan:
+     * university equals, any course contains (case-insensitive), location equals or "both", price in range.
+     */
+    public List<TutorPostingEntity> filter(TutorFilterDto filterDto) {
+        lockForRead();
+        try {
+            BitSet matches = state.matching(filterDto);
+            List<TutorPostingEntity> result = new ArrayList<>(matches.cardinality());
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                result.add(state.postings.get(slot));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Returns up to limit matching postings ordered by (pricePerHour, id), starting after the cursor position.
+     */
+    public List<TutorPostingEntity> filterPage(TutorFilterDto filterDto, KeysetCursor after, int limit) {
+        lockForRead();
+        try {
+            BitSet matches = state.matching(filterDto);
+            List<TutorPostingEntity> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            int start = after == null ? 0 : state.lowerBound(after.sortValue());
+            for (int i = start; i < state.slotsByPrice.length && result.size() < limit; i++) {
+                int slot = state.slotsByPrice[i];
+                if (!matches.get(slot)) {
+                    continue;
+                }
+                TutorPostingEntity posting = state.postings.get(slot);
+                if (after != null && state.sortedPrices[i] == after.sortValue() && posting.getId().compareTo(after.id()) <= 0) {
+                    continue;
+                }
+                result.add(posting);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Counts postings per university, location and price bucket for the filter. Each facet ignores its own
+     * dimension of the filter. Location counts are what filtering by that location would return, so they
+     * include postings offered in "both". Bucket bounds are ascending; buckets are [bound[i-1], bound[i]).
+     */
+    public TutorPostingFacetsDto facets(TutorFilterDto filterDto, double[] priceBounds) {
+        lockForRead();
+        try {
+            int total = state.matching(filterDto).cardinality();
+
+            TutorFilterDto withoutUniversity = copyOf(filterDto);
+            withoutUniversity.setUniversity(null);
+            BitSet universityBase = state.matching(withoutUniversity);
+            Map<String, Integer> universities = new TreeMap<>();
+            state.byUniversity.forEach((university, slots) -> {
+                int count = intersectionCount(slots, universityBase);
+                if (count > 0) {
+                    universities.put(university, count);
+                }
+            });
+
+            TutorFilterDto withoutLocation = copyOf(filterDto);
+            withoutLocation.setLocation(null);
+            BitSet locationBase = state.matching(withoutLocation);
+            BitSet both = state.byLocation.getOrDefault("both", new BitSet());
+            Map<String, Integer> locations = new TreeMap<>();
+            state.byLocation.forEach((location, slots) -> {
+                BitSet matches = (BitSet) slots.clone();
+                matches.or(both);
+                int count = intersectionCount(matches, locationBase);
+                if (count > 0) {
+                    locations.put(location, count);
+                }
+            });
+
+            TutorFilterDto withoutPrice = copyOf(filterDto);
+            withoutPrice.setPriceRange(null);
+            BitSet priceBase = state.matching(withoutPrice);
+            int[] bucketCounts = new int[priceBounds.length + 1];
+            for (int slot = priceBase.nextSetBit(0); slot >= 0; slot = priceBase.nextSetBit(slot + 1)) {
+                int bucket = Arrays.binarySearch(priceBounds, state.pricesBySlot[slot]);
+                // An exact bound starts the next bucket
+                bucketCounts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+            }
+            List<TutorPostingFacetsDto.PriceBucketDto> priceBuckets = new ArrayList<>(bucketCounts.length);
+            for (int i = 0; i < bucketCounts.length; i++) {
+                priceBuckets.add(new TutorPostingFacetsDto.PriceBucketDto(
+                    i == 0 ? null : priceBounds[i - 1],
+                    i == priceBounds.length ? null : priceBounds[i],
+                    bucketCounts[i]));
+            }
+
+            return new TutorPostingFacetsDto(total, universities, locations, priceBuckets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int intersectionCount(BitSet a, BitSet b) {
+        BitSet intersection = (BitSet) a.clone();
+        intersection.and(b);
+        return intersection.cardinality();
+    }
+
+    private static TutorFilterDto copyOf(TutorFilterDto filterDto) {
+        TutorFilterDto copy = new TutorFilterDto();
+        copy.setUniversity(filterDto.getUniversity());
+        copy.setCourses(filterDto.getCourses());
+        copy.setLocation(filterDto.getLocation());
+        copy.setPriceRange(filterDto.getPriceRange());
+        return copy;
+    }
+
+    /*
+     * Takes the read lock, first re-sorting prices under the write lock if postings changed since the last query.
+     */
+    private void lockForRead() {
+        lock.readLock().lock();
+        if (!state.priceOrderStale) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            state.sortPrices();
+            // Downgrade: take the read lock before giving up the write lock
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static String normalizeCourse(String course) {
+        return course.toLowerCase(Locale.ROOT);
+    }
+
+    /*
+     * Index contents. Only accessed under the index lock.
+     */
+    static final class State {
+
+        private final List<TutorPostingEntity> postings = new ArrayList<>();
+        private final Map<String, Integer> slotsById = new HashMap<>();
+        private final BitSet live = new BitSet();
+
+        private final Map<String, BitSet> courseGrams = new HashMap<>();
+        private final List<String[]> coursesBySlot = new ArrayList<>();
+        private final BitSet withCourses = new BitSet();
+
+        private final Map<String, BitSet> byUniversity = new HashMap<>();
+        private final Map<String, BitSet> byLocation = new HashMap<>();
+
+        private double[] pricesBySlot = new double[16];
+        private double[] sortedPrices = new double[0];
+        private int[] slotsByPrice = new int[0];
+        private boolean priceOrderStale;
+
+        void put(TutorPostingEntity posting) {
+            Integer existing = slotsById.get(posting.getId());
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                clear(slot);
+                postings.set(slot, posting);
+            } else {
+                slot = postings.size();
+                postings.add(posting);
+                coursesBySlot.add(null);
+                slotsById.put(posting.getId(), slot);
+            }
+
+            live.set(slot);
+
+            if (posting.getCoursesTaught() != null) {
+                String[] courses = new String[posting.getCoursesTaught().size()];
+                for (int i = 0; i < courses.length; i++) {
+                    String course = posting.getCoursesTaught().get(i);
+                    courses[i] = course == null ? "" : normalizeCourse(course);
+                    for (String gram : grams(courses[i])) {
+                        courseGrams.computeIfAbsent(gram, g -> new BitSet()).set(slot);
+                    }
+                }
+                coursesBySlot.set(slot, courses);
+                if (courses.length > 0) {
+                    withCourses.set(slot);
+                }
+            }
+            if (posting.getUniversity() != null) {
+                byUniversity.computeIfAbsent(posting.getUniversity(), u -> new BitSet()).set(slot);
+            }
+            if (posting.getLocation() != null) {
+                byLocation.computeIfAbsent(posting.getLocation(), l -> new BitSet()).set(slot);
+            }
+
+            if (slot >= pricesBySlot.length) {
+                pricesBySlot = Arrays.copyOf(pricesBySlot, Math.max(slot + 1, pricesBySlot.length * 2));
+            }
+            pricesBySlot[slot] = posting.getPricePerHour();
+            priceOrderStale = true;
+        }
+
+        void remove(String id) {
+            Integer slot = slotsById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            clear(slot);
+            postings.set(slot, null);
+            priceOrderStale = true;
+        }
+
+        // Removes the slot from every bitmap it was added to
+        private void clear(int slot) {
+            TutorPostingEntity posting = postings.get(slot);
+            live.clear(slot);
+            withCourses.clear(slot);
+
+            String[] courses = coursesBySlot.get(slot);
+            if (courses != null) {
+                for (String course : courses) {
+                    for (String gram : grams(course)) {
+                        clearBit(courseGrams, gram, slot);
+                    }
+                }
+                coursesBySlot.set(slot, null);
+            }
+            if (posting.getUniversity() != null) {
+                clearBit(byUniversity, posting.getUniversity(), slot);
+            }
+            if (posting.getLocation() != null) {
+                clearBit(byLocation, posting.getLocation(), slot);
+            }
+        }
+
+        private static void clearBit(Map<String, BitSet> bitmaps, String key, int slot) {
+            BitSet bits = bitmaps.get(key);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+
+        void sortPrices() {
+            if (!priceOrderStale) {
+                return;
+            }
+            int count = live.cardinality();
+            Integer[] order = new Integer[count];
+            int i = 0;
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                order[i++] = slot;
+            }
+            // Ties are ordered by id, the same (pricePerHour, _id) order used for keyset pages
+            Arrays.sort(order, (a, b) -> {
+                int byPrice = Double.compare(pricesBySlot[a], pricesBySlot[b]);
+                return byPrice != 0 ? byPrice : postings.get(a).getId().compareTo(postings.get(b).getId());
+            });
+
+            sortedPrices = new double[count];
+            slotsByPrice = new int[count];
+            for (int j = 0; j < count; j++) {
+                slotsByPrice[j] = order[j];
+                sortedPrices[j] = pricesBySlot[order[j]];
+            }
+            priceOrderStale = false;
+        }
+
+        BitSet matching(TutorFilterDto filterDto) {
+            BitSet result = null;
+
+            if (filterDto.getUniversity() != null && !filterDto.getUniversity().isEmpty()) {
+                result = and(result, byUniversity.get(filterDto.getUniversity()));
+            }
+
+            if (filterDto.getLocation() != null && !filterDto.getLocation().equals("all")) {
+                BitSet locations = new BitSet();
+                orInto(locations, byLocation.get(filterDto.getLocation()));
+                orInto(locations, byLocation.get("both"));
+                result = and(result, locations);
+            }
+
+            if (filterDto.getCourses() != null && !filterDto.getCourses().isEmpty()) {
+                BitSet courses = new BitSet();
+                for (String course : filterDto.getCourses()) {
+                    courses.or(matchingCourse(normalizeCourse(course), result));
+                }
+                result = and(result, courses);
+            }
+
+            if (filterDto.getPriceRange() != null
+                    && (filterDto.getPriceRange().getMin() != null || filterDto.getPriceRange().getMax() != null)) {
+                result = matchingPrice(filterDto.getPriceRange(), result);
+            }
+
+            if (result == null) {
+                return (BitSet) live.clone();
+            }
+            return result;
+        }
+
+        /*
+         * Slots with a course code containing the query. Up to MAX_GRAM characters the gram bitmap is exact;
+         * longer queries intersect their trigrams and check the remaining candidates.
+         */
+        private BitSet matchingCourse(String query, BitSet restrictTo) {
+            if (query.isEmpty()) {
+                return (BitSet) withCourses.clone();
+            }
+            if (query.length() <= MAX_GRAM) {
+                BitSet bits = courseGrams.get(query);
+                return bits == null ? new BitSet() : (BitSet) bits.clone();
+            }
+
+            BitSet candidates = restrictTo == null ? null : (BitSet) restrictTo.clone();
+            for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+                candidates = and(candidates, courseGrams.get(query.substring(i, i + MAX_GRAM)));
+                if (candidates.isEmpty()) {
+                    return candidates;
+                }
+            }
+
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                boolean found = false;
+                for (String course : coursesBySlot.get(slot)) {
+                    if (course.contains(query)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    candidates.clear(slot);
+                }
+            }
+            return candidates;
+        }
+
+        /*
+         * Narrows the candidates to the price range. A small candidate set is checked slot by slot,
+         * otherwise the range is read from the sorted price array.
+         */
+        private BitSet matchingPrice(TutorFilterDto.PriceRangeDto range, BitSet candidates) {
+            double min = range.getMin() != null ? range.getMin() : Double.NEGATIVE_INFINITY;
+            double max = range.getMax() != null ? range.getMax() : Double.POSITIVE_INFINITY;
+
+            if (candidates != null && candidates.cardinality() < sortedPrices.length / 8) {
+                for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                    if (pricesBySlot[slot] < min || pricesBySlot[slot] > max) {
+                        candidates.clear(slot);
+                    }
+                }
+                return candidates;
+            }
+
+            BitSet inRange = new BitSet();
+            for (int i = lowerBound(min); i < sortedPrices.length && sortedPrices[i] <= max; i++) {
+                inRange.set(slotsByPrice[i]);
+            }
+            return and(candidates, inRange);
+        }
+
+        // First index whose price is >= min
+        private int lowerBound(double min) {
+            int low = 0;
+            int high = sortedPrices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedPrices[mid] < min) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Intersects into a copy; a null result means "no restriction yet"
+        private static BitSet and(BitSet result, BitSet bits) {
+            if (bits == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                return (BitSet) bits.clone();
+            }
+            result.and(bits);
+            return result;
+        }
+
+        private static void orInto(BitSet target, BitSet bits) {
+            if (bits != null) {
+                target.or(bits);
+            }
+        }
+
+        private static List<String> grams(String course) {
+            List<String> grams = new ArrayList<>();
+            for (int length = 1; length <= MAX_GRAM; length++) {
+                for (int i = 0; i + length <= course.length(); i++) {
+                    grams.add(course.substring(i, i + length));
+                }
+            }
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.app.Tutor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Shared loading and locking for the in-memory tutor posting indexes.
+ *
+ * Subclasses keep their contents in a state object guarded by the lock. TutorService loads every index
+ * on startup and periodically, and calls put/remove whenever a posting is saved or deleted.
+ * A rebuild fills a fresh state from the database off-lock, then replays writes that happened while
+ * it was loading before swapping it in.
+ */
+public abstract class TutorPostingIndexSupport<S> {
+
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    protected S state = newState();
+    private volatile boolean ready;
+
+    // Writes made while a rebuild is loading postings; replayed onto the rebuilt state (null = removed)
+    private Map<String, TutorPostingEntity> pendingDuringRebuild;
+
+    protected abstract S newState();
+
+    protected abstract void put(S state, TutorPostingEntity posting);
+
+    protected abstract void remove(S state, String id);
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /*
+     * Call before loading the postings passed to completeRebuild.
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Replaces the index contents with the given postings, keeping any writes made since beginRebuild.
+     */
+    public void completeRebuild(List<TutorPostingEntity> postings) {
+        S rebuilt = newState();
+        for (TutorPostingEntity posting : postings) {
+            put(rebuilt, posting);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.forEach((id, posting) -> {
+                    if (posting == null) {
+                        remove(rebuilt, id);
+                    } else {
+                        put(rebuilt, posting);
+                    }
+                });
+                pendingDuringRebuild = null;
+            }
+            state = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(TutorPostingEntity posting) {
+        lock.writeLock().lock();
+        try {
+            put(state, posting);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.put(posting.getId(), posting);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            remove(state, id);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.put(id, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -2,8 +2,12 @@
 package com.app.Tutor;
 
 import java.util.List;
+import java.util.stream.Stream;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 public interface TutorPostingRepository extends MongoRepository<TutorPostingEntity, String> {
     List<TutorPostingEntity> findByTutorId(String tutorId);
+
+    // Reads from a cursor; the caller must close the stream
+    Stream<TutorPostingEntity> streamAllBy();
 }
@@ -0,0 +1,291 @@
+package com.app.Tutor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/*
+ * In-memory inverted index for relevance-ranked search over tutor postings.
+ *
+ * Title, description, courses taught and university are tokenized into one weighted term frequency per
+ * posting (courses and title count more than description) and ranked with BM25. Course codes are
+ * normalized, so "CSC301", "csc 301" and "CSC-301" all produce the term "csc301" alongside "csc" and "301".
+ *
+ * An update rewrites the posting's slot in place and a delete frees its slot for the next new posting,
+ * so postings lists only ever hold live documents.
+ */
+@Component
+public class TutorPostingSearchIndex extends TutorPostingIndexSupport<TutorPostingSearchIndex.State> {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final float TITLE_WEIGHT = 2.0f;
+    private static final float COURSE_WEIGHT = 3.0f;
+    private static final float UNIVERSITY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "the", "of", "for", "in", "on", "to", "with", "or", "is", "i", "my");
+
+    @Override
+    protected State newState() {
+        return new State();
+    }
+
+    @Override
+    protected void put(State state, TutorPostingEntity posting) {
+        state.put(posting);
+    }
+
+    @Override
+    protected void remove(State state, String id) {
+        state.remove(id);
+    }
+
+    /*
+     * Returns up to limit postings ranked by BM25 score for the query, best first.
+     */
+    public List<TutorPostingEntity> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+
+        lock.readLock().lock();
+        try {
+            return state.search(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Lowercases and splits on anything that is not a letter or digit, also splitting letters from digits.
+     * A short letter run followed by a 3-4 digit run (optionally separated by a space or hyphen)
+     * is treated as a course code and additionally emitted joined, e.g. "csc 301" -> csc, 301, csc301.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+
+        String previous = null;
+        boolean joinable = false;
+        int i = 0;
+        while (i < lower.length()) {
+            char c = lower.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                // A single space or hyphen still allows "csc 301" to join into a course code
+                joinable = previous != null && (c == ' ' || c == '-') && joinable;
+                if (c != ' ' && c != '-') {
+                    previous = null;
+                }
+                i++;
+                continue;
+            }
+
+            boolean digits = Character.isDigit(c);
+            int start = i;
+            while (i < lower.length() && Character.isLetterOrDigit(lower.charAt(i))
+                    && Character.isDigit(lower.charAt(i)) == digits) {
+                i++;
+            }
+            String part = lower.substring(start, i);
+
+            if (digits && joinable && isCourseSubject(previous) && part.length() >= 3 && part.length() <= 4) {
+                tokens.add(previous + part);
+            }
+            if (!STOP_WORDS.contains(part)) {
+                tokens.add(part);
+            }
+
+            previous = part;
+            joinable = !digits;
+        }
+        return tokens;
+    }
+
+    private static boolean isCourseSubject(String part) {
+        return part != null && part.length() >= 2 && part.length() <= 4 && !Character.isDigit(part.charAt(0));
+    }
+
+    /*
+     * Index contents. Only accessed under the index lock.
+     */
+    static final class State {
+
+        private final Map<String, Postings> postingsByTerm = new HashMap<>();
+        private final Map<String, Integer> docsById = new HashMap<>();
+        private final List<TutorPostingEntity> docs = new ArrayList<>();
+        private final List<String[]> termsByDoc = new ArrayList<>();
+        // Slots of deleted postings, reused by the next new posting
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+        private float[] docLengths = new float[16];
+        private double totalLength;
+
+        void put(TutorPostingEntity posting) {
+            Integer existing = docsById.get(posting.getId());
+            int doc;
+            if (existing != null) {
+                clear(existing);
+                doc = existing;
+            } else if (!freeSlots.isEmpty()) {
+                doc = freeSlots.pop();
+            } else {
+                doc = docs.size();
+                docs.add(null);
+                termsByDoc.add(null);
+                if (doc >= docLengths.length) {
+                    docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+                }
+            }
+            docs.set(doc, posting);
+            docsById.put(posting.getId(), doc);
+
+            Map<String, Float> frequencies = new HashMap<>();
+            float length = addTerms(frequencies, posting.getTitle(), TITLE_WEIGHT)
+                + addTerms(frequencies, posting.getDescription(), DESCRIPTION_WEIGHT)
+                + addTerms(frequencies, posting.getUniversity(), UNIVERSITY_WEIGHT);
+            if (posting.getCoursesTaught() != null) {
+                for (String course : posting.getCoursesTaught()) {
+                    length += addTerms(frequencies, course, COURSE_WEIGHT);
+                }
+            }
+
+            frequencies.forEach((term, frequency) ->
+                postingsByTerm.computeIfAbsent(term, t -> new Postings()).add(doc, frequency));
+            termsByDoc.set(doc, frequencies.keySet().toArray(new String[0]));
+
+            docLengths[doc] = length;
+            totalLength += length;
+        }
+
+        void remove(String id) {
+            Integer doc = docsById.remove(id);
+            if (doc == null) {
+                return;
+            }
+            clear(doc);
+            docs.set(doc, null);
+            freeSlots.push(doc);
+        }
+
+        // Takes the slot's entries out of the postings lists of its terms, so queries never see them
+        private void clear(int doc) {
+            totalLength -= docLengths[doc];
+            docLengths[doc] = 0;
+            for (String term : termsByDoc.get(doc)) {
+                Postings postings = postingsByTerm.get(term);
+                postings.remove(doc);
+                if (postings.size == 0) {
+                    postingsByTerm.remove(term);
+                }
+            }
+            termsByDoc.set(doc, null);
+        }
+
+        private static float addTerms(Map<String, Float> frequencies, String text, float weight) {
+            List<String> terms = tokenize(text);
+            for (String term : terms) {
+                frequencies.merge(term, weight, Float::sum);
+            }
+            return terms.size() * weight;
+        }
+
+        // Slots allocated so far, live or free; stays at the peak posting count however often postings change
+        int slotCount() {
+            return docs.size();
+        }
+
+        List<TutorPostingEntity> search(Set<String> terms, int limit) {
+            int liveDocs = docsById.size();
+            if (liveDocs == 0 || terms.isEmpty() || limit < 1) {
+                return List.of();
+            }
+            double averageLength = Math.max(totalLength / liveDocs, 1.0);
+            double normBase = K1 * (1 - B);
+            double normPerLength = K1 * B / averageLength;
+
+            // Only documents on the query terms' postings lists are scored
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings postings = postingsByTerm.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = postings.docs[i];
+                    float frequency = postings.frequencies[i];
+                    double norm = normBase + normPerLength * docLengths[doc];
+                    scores.merge(doc, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                }
+            }
+
+            // Bounded min-heap keeps the best limit documents; ties go to the lower id, the older posting
+            Comparator<Integer> worstFirst = (a, b) -> {
+                int byScore = Double.compare(scores.get(a), scores.get(b));
+                return byScore != 0 ? byScore : docs.get(b).getId().compareTo(docs.get(a).getId());
+            };
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, worstFirst);
+            for (Integer doc : scores.keySet()) {
+                if (top.size() < limit) {
+                    top.offer(doc);
+                } else if (worstFirst.compare(doc, top.peek()) > 0) {
+                    top.poll();
+                    top.offer(doc);
+                }
+            }
+
+            TutorPostingEntity[] ranked = new TutorPostingEntity[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = docs.get(top.poll());
+            }
+            return Arrays.asList(ranked);
+        }
+    }
+
+    /*
+     * Documents containing a term with their weighted frequency, in no particular order.
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+
+        void add(int doc, float frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        // Moves the last entry into the removed one's place
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    size--;
+                    docs[i] = docs[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.app.Tutor;
 
 import java.util.List;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +15,7 @@ import lombok.NoArgsConstructor;
 public class TutorProfileEntity {
     @Id
     private String id;
+    @Indexed
     private String userId;
     private String firstName;
     private String lastName;
@@ -21,6 +24,9 @@ public class TutorProfileEntity {
     private String bio;
     private List<String> expertise;
     private String createdAt;
+    // Optimistic locking; also served as the ETag
+    @Version
+    private Long version;
     
     public TutorProfileEntity(String userId, String firstName, String lastName, 
                              String email, String university, String bio, 
@@ -1,9 +1,14 @@
 
 package com.app.Tutor;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 public interface TutorProfileRepository extends MongoRepository<TutorProfileEntity, String> {
     Optional<TutorProfileEntity> findByUserId(String userId);
+
+    // Resolves many profiles in one $in query
+    List<TutorProfileEntity> findByUserIdIn(Collection<String> userIds);
 }
@@ -0,0 +1,163 @@
+package com.app.Tutor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Materialized candidates for tutor recommendations: for every course code, the postings teaching it,
+ * kept sorted cheapest first and newest first on equal price. Recommending for a student only reads the
+ * head of each of their courses' lists instead of joining courses against every posting.
+ */
+@Component
+public class TutorRecommendationIndex extends TutorPostingIndexSupport<TutorRecommendationIndex.State> {
+
+    // Subject letters and course number, ignoring suffixes like H1 or Y5 and any spacing
+    private static final Pattern COURSE_CODE = Pattern.compile("^([A-Z]{2,4})(\\d{3,4})");
+
+    // Ids are ObjectIds, whose hex form sorts by creation time, so a larger id is a newer posting
+    static final Comparator<TutorPostingEntity> CHEAPEST_THEN_NEWEST =
+        Comparator.comparingDouble(TutorPostingEntity::getPricePerHour)
+            .thenComparing(TutorPostingEntity::getId, Comparator.reverseOrder());
+
+    @Override
+    protected State newState() {
+        return new State();
+    }
+
+    @Override
+    protected void put(State state, TutorPostingEntity posting) {
+        state.put(posting);
+    }
+
+    @Override
+    protected void remove(State state, String id) {
+        state.remove(id);
+    }
+
+    /*
+     * Returns up to limit postings for the given courses, ranked by how many of the courses they teach,
+     * then price, then recency. Only the first candidatesPerCourse postings of each course are considered.
+     */
+    public List<TutorPostingEntity> recommend(Collection<String> courseCodes, String excludeTutorId, int limit, int candidatesPerCourse) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String code : courseCodes) {
+            String key = courseKey(code);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> overlap = new HashMap<>();
+            Map<String, TutorPostingEntity> candidates = new HashMap<>();
+            for (String key : keys) {
+                TreeSet<TutorPostingEntity> postings = state.byCourse.get(key);
+                if (postings == null) {
+                    continue;
+                }
+                int taken = 0;
+                Iterator<TutorPostingEntity> iterator = postings.iterator();
+                while (iterator.hasNext() && taken < candidatesPerCourse) {
+                    TutorPostingEntity posting = iterator.next();
+                    if (Objects.equals(excludeTutorId, posting.getTutorId())) {
+                        continue;
+                    }
+                    taken++;
+                    candidates.put(posting.getId(), posting);
+                }
+            }
+
+            // Overlap is counted over all of the student's courses, not only those a posting was a candidate for
+            for (TutorPostingEntity posting : candidates.values()) {
+                int count = 0;
+                for (String key : state.keysByPosting.get(posting.getId())) {
+                    if (keys.contains(key)) {
+                        count++;
+                    }
+                }
+                overlap.put(posting.getId(), count);
+            }
+
+            List<TutorPostingEntity> ranked = new ArrayList<>(candidates.values());
+            ranked.sort(Comparator.<TutorPostingEntity>comparingInt(p -> overlap.get(p.getId())).reversed()
+                .thenComparing(CHEAPEST_THEN_NEWEST));
+            return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Normalizes a course code so "CSC301", "csc 301" and "CSC301H1" compare equal.
+     * Returns null for blank codes.
+     */
+    static String courseKey(String code) {
+        if (code == null) {
+            return null;
+        }
+        String normalized = code.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "");
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        Matcher matcher = COURSE_CODE.matcher(normalized);
+        return matcher.find() ? matcher.group(1) + matcher.group(2) : normalized;
+    }
+
+    /*
+     * Index contents. Only accessed under the index lock.
+     */
+    static final class State {
+
+        private final Map<String, TreeSet<TutorPostingEntity>> byCourse = new HashMap<>();
+        private final Map<String, Set<String>> keysByPosting = new HashMap<>();
+        private final Map<String, TutorPostingEntity> postingsById = new HashMap<>();
+
+        void put(TutorPostingEntity posting) {
+            remove(posting.getId());
+
+            Set<String> keys = new LinkedHashSet<>();
+            if (posting.getCoursesTaught() != null) {
+                for (String course : posting.getCoursesTaught()) {
+                    String key = courseKey(course);
+                    if (key != null) {
+                        keys.add(key);
+                    }
+                }
+            }
+            for (String key : keys) {
+                byCourse.computeIfAbsent(key, k -> new TreeSet<>(CHEAPEST_THEN_NEWEST)).add(posting);
+            }
+            keysByPosting.put(posting.getId(), keys);
+            postingsById.put(posting.getId(), posting);
+        }
+
+        void remove(String id) {
+            TutorPostingEntity posting = postingsById.remove(id);
+            if (posting == null) {
+                return;
+            }
+            for (String key : keysByPosting.remove(id)) {
+                TreeSet<TutorPostingEntity> postings = byCourse.get(key);
+                postings.remove(posting);
+                if (postings.isEmpty()) {
+                    byCourse.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.app.Tutor;
+
+import com.app.Course.CourseChangedEvent;
+import com.app.Course.CourseService;
+import com.app.Dto.TutorPostingDto;
+import com.app.common.KeysetCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/*
+ * Recommends tutor postings for the courses a student is enrolled in.
+ * Candidates come from TutorRecommendationIndex; each student's course codes are cached
+ * and evicted when one of their courses changes.
+ */
+@Service
+public class TutorRecommendationService {
+
+    private final TutorRecommendationIndex recommendationIndex;
+    private final CourseService courseService;
+    private final TutorService tutorService;
+    private final int candidatesPerCourse;
+
+    private final Cache<String, List<String>> courseCodesByUser;
+
+    public TutorRecommendationService(TutorRecommendationIndex recommendationIndex,
+                                      CourseService courseService,
+                                      TutorService tutorService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${tutor-postings.recommendations.candidates-per-course:100}") int candidatesPerCourse,
+                                      @Value("${tutor-postings.recommendations.course-cache.ttl:PT10M}") Duration courseCacheTtl) {
+        this.recommendationIndex = recommendationIndex;
+        this.courseService = courseService;
+        this.tutorService = tutorService;
+        this.candidatesPerCourse = candidatesPerCourse;
+        this.courseCodesByUser = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(courseCacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, courseCodesByUser, "courseCodesByUser");
+    }
+
+    /*
+     * Throws IllegalStateException while the recommendation index is still loading.
+     */
+    public List<TutorPostingDto> getRecommendations(String userId, Integer limit) {
+        if (!recommendationIndex.isReady()) {
+            throw new IllegalStateException("Recommendation index is loading");
+        }
+        List<String> courseCodes = courseCodesByUser.get(userId, this::loadCourseCodes);
+        return recommendationIndex.recommend(courseCodes, userId, KeysetCursor.pageSize(limit), candidatesPerCourse).stream()
+                .map(tutorService::convertToPostingDto)
+                .collect(Collectors.toList());
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.userId() != null) {
+            courseCodesByUser.invalidate(event.userId());
+        }
+    }
+
+    private List<String> loadCourseCodes(String userId) {
+        return courseService.getCourseCodes(userId).stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
@@ -2,8 +2,11 @@ package com.app.Tutor;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 public interface TutorRepository extends MongoRepository<TutorEntity, String> {
+    // Reads from a cursor; the caller must close the stream
+    Stream<TutorEntity> streamAllBy();
 }
\ No newline at end of file
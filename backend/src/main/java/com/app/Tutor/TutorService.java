@@ -2,10 +2,28 @@
 package com.app.Tutor;
 
 import com.app.Dto.*;
+import com.app.common.KeysetCursor;
+import com.app.common.OptimisticRetry;
+import com.app.common.SingleFlight;
+import com.app.common.SingleFlightFactory;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TutorService {
@@ -13,13 +31,42 @@ public class TutorService {
     private final TutorRepository tutorRepository;
     private final TutorProfileRepository tutorProfileRepository;
     private final TutorPostingRepository tutorPostingRepository;
+    private final TutorPostingIndex tutorPostingIndex;
+    private final TutorPostingSearchIndex tutorPostingSearchIndex;
+    // Every in-memory posting index, kept in sync on posting writes
+    private final List<TutorPostingIndexSupport<?>> postingIndexes;
+    private final MongoTemplate mongoTemplate;
+    private final OptimisticRetry optimisticRetry;
+    private final double[] priceBucketBounds;
+    private final int maxProfileBatchSize;
+    // Coalesce concurrent reads of popular postings and profiles
+    private final SingleFlight<String, TutorPostingDto> postingsById;
+    private final SingleFlight<String, TutorProfileDto> profilesByUserId;
 
     public TutorService(TutorRepository tutorRepository, 
                        TutorProfileRepository tutorProfileRepository,
-                       TutorPostingRepository tutorPostingRepository) {
+                       TutorPostingRepository tutorPostingRepository,
+                       TutorPostingIndex tutorPostingIndex,
+                       TutorPostingSearchIndex tutorPostingSearchIndex,
+                       List<TutorPostingIndexSupport<?>> postingIndexes,
+                       MongoTemplate mongoTemplate,
+                       SingleFlightFactory singleFlightFactory,
+                       OptimisticRetry optimisticRetry,
+                       @Value("${tutor-postings.facets.price-buckets:20,40,60,80,100}") double[] priceBucketBounds,
+                       @Value("${tutor-profiles.batch.max-size:200}") int maxProfileBatchSize) {
         this.tutorRepository = tutorRepository;
         this.tutorProfileRepository = tutorProfileRepository;
         this.tutorPostingRepository = tutorPostingRepository;
+        this.tutorPostingIndex = tutorPostingIndex;
+        this.tutorPostingSearchIndex = tutorPostingSearchIndex;
+        this.postingIndexes = postingIndexes;
+        this.mongoTemplate = mongoTemplate;
+        this.optimisticRetry = optimisticRetry;
+        this.priceBucketBounds = priceBucketBounds.clone();
+        Arrays.sort(this.priceBucketBounds);
+        this.maxProfileBatchSize = maxProfileBatchSize;
+        this.postingsById = singleFlightFactory.create("tutorPostingsById");
+        this.profilesByUserId = singleFlightFactory.create("tutorProfilesByUserId");
     }
 
     // Original tutor methods
@@ -27,6 +74,11 @@ public class TutorService {
         return tutorRepository.findAll();
     }
 
+    // Cursor-backed read of all tutors; the caller must close the stream
+    public Stream<TutorEntity> streamAllTutors() {
+        return tutorRepository.streamAllBy();
+    }
+
     public TutorEntity getTutorById(String id) {
         return tutorRepository.findById(id).orElse(null);
     }
@@ -59,6 +111,29 @@ public class TutorService {
         }
     }
 
+    /*
+     * Adds one id to a tutor list with $addToSet, in a single update and without rewriting the document.
+     * Returns false if the tutor does not exist.
+     */
+    public boolean addToTutorList(String userID, TutorListField list, String itemId) {
+        UpdateResult result = mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(userID)),
+            new Update().addToSet(list.getField(), itemId),
+            TutorEntity.class);
+        return result.getMatchedCount() > 0;
+    }
+
+    /*
+     * Removes one id from a tutor list with $pull. Returns false if the tutor does not exist.
+     */
+    public boolean removeFromTutorList(String userID, TutorListField list, String itemId) {
+        UpdateResult result = mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(userID)),
+            new Update().pull(list.getField(), itemId),
+            TutorEntity.class);
+        return result.getMatchedCount() > 0;
+    }
+
     public void deleteTutor(String id) {
         tutorRepository.deleteById(id);
     }
@@ -93,32 +168,58 @@ public class TutorService {
         );
         
         TutorProfileEntity savedEntity = tutorProfileRepository.save(entity);
+        profilesByUserId.invalidate(userId);
         return convertToProfileDto(savedEntity);
     }
     
     public TutorProfileDto getTutorProfileByUserId(String userId) {
-        Optional<TutorProfileEntity> profileOpt = tutorProfileRepository.findByUserId(userId);
-        return profileOpt.map(this::convertToProfileDto).orElse(null);
+        return profilesByUserId.get(userId, key ->
+            tutorProfileRepository.findByUserId(key).map(this::convertToProfileDto).orElse(null));
     }
     
-    public TutorProfileDto updateTutorProfile(String userId, TutorProfileDto profileDto) {
-        Optional<TutorProfileEntity> profileOpt = tutorProfileRepository.findByUserId(userId);
-        if (profileOpt.isEmpty()) {
-            throw new NoSuchElementException("Profile not found for user: " + userId);
+    /*
+     * Resolves the profiles of many users with one $in query, keyed by user id.
+     * Users without a profile are left out. Throws IllegalArgumentException above the batch size limit.
+     */
+    public Map<String, TutorProfileDto> getTutorProfilesByUserIds(Collection<String> userIds) {
+        if (userIds.size() > maxProfileBatchSize) {
+            throw new IllegalArgumentException("At most " + maxProfileBatchSize + " user ids per batch");
         }
-        
-        TutorProfileEntity entity = profileOpt.get();
-        
-        // Update fields if provided
-        if (profileDto.getFirstName() != null) entity.setFirstName(profileDto.getFirstName());
-        if (profileDto.getLastName() != null) entity.setLastName(profileDto.getLastName());
-        if (profileDto.getEmail() != null) entity.setEmail(profileDto.getEmail());
-        if (profileDto.getUniversity() != null) entity.setUniversity(profileDto.getUniversity());
-        if (profileDto.getBio() != null) entity.setBio(profileDto.getBio());
-        if (profileDto.getExpertise() != null) entity.setExpertise(profileDto.getExpertise());
-        
-        TutorProfileEntity savedEntity = tutorProfileRepository.save(entity);
-        return convertToProfileDto(savedEntity);
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return tutorProfileRepository.findByUserIdIn(userIds).stream()
+            .collect(Collectors.toMap(TutorProfileEntity::getUserId, this::convertToProfileDto, (first, second) -> first));
+    }
+    
+    /*
+     * Applies the provided fields to the user's profile. With an expected version the update only
+     * succeeds against that version; without one a concurrent edit is retried on the fresh profile.
+     */
+    public TutorProfileDto updateTutorProfile(String userId, TutorProfileDto profileDto, Long expectedVersion) {
+        TutorProfileDto updated = optimisticRetry.run("tutorProfile", expectedVersion, () -> {
+            Optional<TutorProfileEntity> profileOpt = tutorProfileRepository.findByUserId(userId);
+            if (profileOpt.isEmpty()) {
+                throw new NoSuchElementException("Profile not found for user: " + userId);
+            }
+            
+            TutorProfileEntity entity = profileOpt.get();
+            if (expectedVersion != null) {
+                entity.setVersion(expectedVersion);
+            }
+            
+            // Update fields if provided
+            if (profileDto.getFirstName() != null) entity.setFirstName(profileDto.getFirstName());
+            if (profileDto.getLastName() != null) entity.setLastName(profileDto.getLastName());
+            if (profileDto.getEmail() != null) entity.setEmail(profileDto.getEmail());
+            if (profileDto.getUniversity() != null) entity.setUniversity(profileDto.getUniversity());
+            if (profileDto.getBio() != null) entity.setBio(profileDto.getBio());
+            if (profileDto.getExpertise() != null) entity.setExpertise(profileDto.getExpertise());
+            
+            return convertToProfileDto(tutorProfileRepository.save(entity));
+        });
+        profilesByUserId.invalidate(userId);
+        return updated;
     }
     
     // Tutor Posting methods
@@ -141,18 +242,78 @@ public class TutorService {
         );
         
         TutorPostingEntity savedEntity = tutorPostingRepository.save(entity);
+        postingIndexes.forEach(index -> index.put(savedEntity));
+        return convertToPostingDto(savedEntity);
+    }
+
+    /*
+     * Updates the provided fields of a posting owned by the user.
+     */
+    public TutorPostingDto updateTutorPosting(String userId, String id, TutorPostingDto postingDto) {
+        TutorPostingEntity entity = findOwnedPosting(userId, id);
+
+        if (postingDto.getTitle() != null) entity.setTitle(postingDto.getTitle());
+        if (postingDto.getCoursesTaught() != null) entity.setCoursesTaught(postingDto.getCoursesTaught());
+        if (postingDto.getDescription() != null) entity.setDescription(postingDto.getDescription());
+        if (postingDto.getLocation() != null) entity.setLocation(postingDto.getLocation());
+        if (postingDto.getPricePerHour() > 0) entity.setPricePerHour(postingDto.getPricePerHour());
+        if (postingDto.getContactEmail() != null) entity.setContactEmail(postingDto.getContactEmail());
+        if (postingDto.getUniversity() != null) entity.setUniversity(postingDto.getUniversity());
+
+        TutorPostingEntity savedEntity = tutorPostingRepository.save(entity);
+        postingIndexes.forEach(index -> index.put(savedEntity));
+        postingsById.invalidate(id);
         return convertToPostingDto(savedEntity);
     }
+
+    public void deleteTutorPosting(String userId, String id) {
+        findOwnedPosting(userId, id);
+        tutorPostingRepository.deleteById(id);
+        postingIndexes.forEach(index -> index.remove(id));
+        postingsById.invalidate(id);
+    }
+
+    private TutorPostingEntity findOwnedPosting(String userId, String id) {
+        TutorPostingEntity entity = tutorPostingRepository.findById(id)
+            .orElseThrow(() -> new NoSuchElementException("Posting not found: " + id));
+        if (!entity.getTutorId().equals(userId)) {
+            throw new IllegalStateException("Posting does not belong to this user");
+        }
+        return entity;
+    }
+
+    /*
+     * Reloads the posting indexes from the database. Runs on startup and periodically,
+     * which also picks up postings written by other instances.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${tutor-postings.index.rebuild-interval:PT10M}",
+               fixedDelayString = "${tutor-postings.index.rebuild-interval:PT10M}")
+    public void reindexTutorPostings() {
+        postingIndexes.forEach(TutorPostingIndexSupport::beginRebuild);
+        List<TutorPostingEntity> postings = tutorPostingRepository.findAll();
+        postingIndexes.forEach(index -> index.completeRebuild(postings));
+    }
     
     public List<TutorPostingDto> getAllTutorPostings() {
         return tutorPostingRepository.findAll().stream()
             .map(this::convertToPostingDto)
             .collect(Collectors.toList());
     }
+
+    // All postings with each tutor's profile joined in by the database
+    public List<TutorPostingDto> getAllTutorPostingsWithProfiles() {
+        return findPostingsWithProfiles(List.of());
+    }
+    
+    // Cursor-backed read of all postings; the caller must close the stream
+    public Stream<TutorPostingDto> streamAllTutorPostings() {
+        return tutorPostingRepository.streamAllBy().map(this::convertToPostingDto);
+    }
     
     public TutorPostingDto getTutorPostingById(String id) {
-        Optional<TutorPostingEntity> postingOpt = tutorPostingRepository.findById(id);
-        return postingOpt.map(this::convertToPostingDto).orElse(null);
+        return postingsById.get(id, key ->
+            tutorPostingRepository.findById(key).map(this::convertToPostingDto).orElse(null));
     }
     
     public List<TutorPostingDto> getTutorPostingsByUserId(String userId) {
@@ -161,58 +322,169 @@ public class TutorService {
             .collect(Collectors.toList());
     }
     
+    /*
+     * Relevance-ranked search over title, description, courses and university, answered from memory.
+     * Throws IllegalStateException while the search index is still loading.
+     */
+    public List<TutorPostingDto> searchTutorPostings(String query, Integer limit) {
+        if (!tutorPostingSearchIndex.isReady()) {
+            throw new IllegalStateException("Search index is loading");
+        }
+        return tutorPostingSearchIndex.search(query, KeysetCursor.pageSize(limit)).stream()
+            .map(this::convertToPostingDto)
+            .collect(Collectors.toList());
+    }
+
+    /*
+     * Facet counts for the filter panel, answered from the posting index.
+     * Throws IllegalStateException while the index is still loading.
+     */
+    public TutorPostingFacetsDto getTutorPostingFacets(TutorFilterDto filterDto) {
+        if (!tutorPostingIndex.isReady()) {
+            throw new IllegalStateException("Posting index is loading");
+        }
+        return tutorPostingIndex.facets(filterDto, priceBucketBounds);
+    }
+
     public List<TutorPostingDto> filterTutorPostings(TutorFilterDto filterDto) {
-        List<TutorPostingEntity> allPostings = tutorPostingRepository.findAll();
-        
-        return allPostings.stream()
-            .filter(posting -> {
-                // Filter by university if specified
-                if (filterDto.getUniversity() != null && !filterDto.getUniversity().isEmpty()) {
-                    if (!filterDto.getUniversity().equals(posting.getUniversity())) {
-                        return false;
-                    }
-                }
-                
-                // Filter by courses if specified
-                if (filterDto.getCourses() != null && !filterDto.getCourses().isEmpty()) {
-                    boolean hasMatchingCourse = false;
-                    for (String course : filterDto.getCourses()) {
-                        for (String taughtCourse : posting.getCoursesTaught()) {
-                            if (taughtCourse.toLowerCase().contains(course.toLowerCase())) {
-                                hasMatchingCourse = true;
-                                break;
-                            }
-                        }
-                        if (hasMatchingCourse) break;
-                    }
-                    if (!hasMatchingCourse) return false;
-                }
-                
-                // Filter by location if specified
-                if (filterDto.getLocation() != null && !filterDto.getLocation().equals("all")) {
-                    if (!posting.getLocation().equals(filterDto.getLocation()) && 
-                        !posting.getLocation().equals("both")) {
-                        return false;
-                    }
-                }
-                
-                // Filter by price range
-                if (filterDto.getPriceRange() != null) {
-                    if (filterDto.getPriceRange().getMin() != null && 
-                        posting.getPricePerHour() < filterDto.getPriceRange().getMin()) {
-                        return false;
-                    }
-                    if (filterDto.getPriceRange().getMax() != null && 
-                        posting.getPricePerHour() > filterDto.getPriceRange().getMax()) {
-                        return false;
-                    }
+        if (tutorPostingIndex.isReady()) {
+            return tutorPostingIndex.filter(filterDto).stream()
+                .map(this::convertToPostingDto)
+                .collect(Collectors.toList());
+        }
+        return queryTutorPostings(filterDto);
+    }
+
+    /*
+     * Runs the filter as a database query, used until the posting index has been loaded.
+     */
+    private List<TutorPostingDto> queryTutorPostings(TutorFilterDto filterDto) {
+        return mongoTemplate.find(Query.query(filterCriteria(filterDto)), TutorPostingEntity.class).stream()
+            .map(this::convertToPostingDto)
+            .collect(Collectors.toList());
+    }
+
+    /*
+     * Filter as Mongo criteria. Courses match when any taught course contains one of them, ignoring case.
+     */
+    private Criteria filterCriteria(TutorFilterDto filterDto) {
+        Criteria criteria = new Criteria();
+
+        if (filterDto.getUniversity() != null && !filterDto.getUniversity().isEmpty()) {
+            criteria.and("university").is(filterDto.getUniversity());
+        }
+
+        if (filterDto.getLocation() != null && !filterDto.getLocation().equals("all")) {
+            criteria.and("location").in(filterDto.getLocation(), "both");
+        }
+
+        if (filterDto.getPriceRange() != null
+                && (filterDto.getPriceRange().getMin() != null || filterDto.getPriceRange().getMax() != null)) {
+            Criteria price = criteria.and("pricePerHour");
+            if (filterDto.getPriceRange().getMin() != null) {
+                price.gte(filterDto.getPriceRange().getMin());
+            }
+            if (filterDto.getPriceRange().getMax() != null) {
+                price.lte(filterDto.getPriceRange().getMax());
+            }
+        }
+
+        if (filterDto.getCourses() != null && !filterDto.getCourses().isEmpty()) {
+            List<Pattern> courses = filterDto.getCourses().stream()
+                .map(course -> Pattern.compile(Pattern.quote(course), Pattern.CASE_INSENSITIVE))
+                .collect(Collectors.toList());
+            criteria.and("coursesTaught").in(courses);
+        }
+
+        return criteria;
+    }
+
+    // Keyset-paginated listings, ordered by (pricePerHour, _id) for postings and _id for tutors
+
+    public PageDto<TutorEntity> getTutorsPage(String cursor, Integer limit) {
+        int pageSize = KeysetCursor.pageSize(limit);
+        Query query = KeysetCursor.pageQuery(new Criteria(), null, KeysetCursor.decodeIdOnly(cursor), pageSize);
+        return KeysetCursor.toPage(mongoTemplate.find(query, TutorEntity.class), pageSize,
+            tutor -> new KeysetCursor(null, tutor.getUserID()), tutor -> tutor);
+    }
+
+    public PageDto<TutorPostingDto> getTutorPostingsPage(String cursor, Integer limit) {
+        int pageSize = KeysetCursor.pageSize(limit);
+        Query query = KeysetCursor.pageQuery(new Criteria(), "pricePerHour", KeysetCursor.decode(cursor), pageSize);
+        return KeysetCursor.toPage(mongoTemplate.find(query, TutorPostingEntity.class), pageSize,
+            TutorService::postingCursor, this::convertToPostingDto);
+    }
+
+    public PageDto<TutorPostingDto> filterTutorPostingsPage(TutorFilterDto filterDto, String cursor, Integer limit) {
+        int pageSize = KeysetCursor.pageSize(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
+        List<TutorPostingEntity> rows;
+        if (tutorPostingIndex.isReady()) {
+            rows = tutorPostingIndex.filterPage(filterDto, after, pageSize + 1);
+        } else {
+            rows = mongoTemplate.find(KeysetCursor.pageQuery(filterCriteria(filterDto), "pricePerHour", after, pageSize),
+                TutorPostingEntity.class);
+        }
+        return KeysetCursor.toPage(rows, pageSize, TutorService::postingCursor, this::convertToPostingDto);
+    }
+
+    public PageDto<TutorPostingDto> getTutorPostingsPageWithProfiles(String cursor, Integer limit) {
+        int pageSize = KeysetCursor.pageSize(limit);
+        Criteria criteria = KeysetCursor.pageCriteria(new Criteria(), "pricePerHour", KeysetCursor.decode(cursor));
+        List<TutorPostingDto> rows = findPostingsWithProfiles(List.of(
+            Aggregation.match(criteria),
+            Aggregation.sort(KeysetCursor.pageSort("pricePerHour")),
+            Aggregation.limit(pageSize + 1)));
+        return KeysetCursor.toPage(rows, pageSize,
+            posting -> new KeysetCursor(posting.getPricePerHour(), posting.getId()), posting -> posting);
+    }
+
+    /*
+     * Runs the given stages over tutorPostings followed by a $lookup of the matching tutor profile,
+     * so a page of postings and their profiles costs one round trip.
+     */
+    private List<TutorPostingDto> findPostingsWithProfiles(List<AggregationOperation> stages) {
+        List<AggregationOperation> pipeline = new ArrayList<>(stages);
+        pipeline.add(Aggregation.lookup(mongoTemplate.getCollectionName(TutorProfileEntity.class),
+            "tutorId", "userId", "profiles"));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(TutorPostingEntity.class, pipeline),
+                TutorPostingEntity.class, Document.class)
+            .getMappedResults().stream()
+            .map(row -> {
+                TutorPostingDto dto = convertToPostingDto(mongoTemplate.getConverter().read(TutorPostingEntity.class, row));
+                List<Document> profiles = row.getList("profiles", Document.class, List.of());
+                if (!profiles.isEmpty()) {
+                    dto.setProfile(convertToProfileDto(
+                        mongoTemplate.getConverter().read(TutorProfileEntity.class, profiles.get(0))));
                 }
-                
-                return true;
+                return dto;
             })
-            .map(this::convertToPostingDto)
             .collect(Collectors.toList());
     }
+
+    /*
+     * Fills in the tutor profile of each posting with a single $in query over the distinct tutor ids.
+     * Used for results that come from the in-memory indexes rather than a database query.
+     */
+    public List<TutorPostingDto> attachProfiles(List<TutorPostingDto> postings) {
+        Set<String> tutorIds = postings.stream()
+            .map(TutorPostingDto::getTutorId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (tutorIds.isEmpty()) {
+            return postings;
+        }
+        Map<String, TutorProfileDto> profiles = tutorProfileRepository.findByUserIdIn(tutorIds).stream()
+            .collect(Collectors.toMap(TutorProfileEntity::getUserId, this::convertToProfileDto, (first, second) -> first));
+        postings.forEach(posting -> posting.setProfile(profiles.get(posting.getTutorId())));
+        return postings;
+    }
+
+    private static KeysetCursor postingCursor(TutorPostingEntity posting) {
+        return new KeysetCursor(posting.getPricePerHour(), posting.getId());
+    }
     
     // Conversion methods
     
@@ -227,10 +499,11 @@ public class TutorService {
         dto.setBio(entity.getBio());
         dto.setExpertise(entity.getExpertise());
         dto.setCreatedAt(entity.getCreatedAt());
+        dto.setVersion(entity.getVersion());
         return dto;
     }
     
-    private TutorPostingDto convertToPostingDto(TutorPostingEntity entity) {
+    TutorPostingDto convertToPostingDto(TutorPostingEntity entity) {
         TutorPostingDto dto = new TutorPostingDto();
         dto.setId(entity.getId());
         dto.setTutorId(entity.getTutorId());
@@ -1,13 +1,18 @@
 package com.app.User;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.app.Dto.*;
+import com.app.common.NdjsonStreams;
+import com.app.security.CurrentUserId;
+import com.app.security.PasswordHashingBusyException;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,9 +24,11 @@ import jakarta.validation.Valid;
 public class UserController {
 
     private final UserService userService;
+    private final NdjsonStreams ndjsonStreams;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, NdjsonStreams ndjsonStreams) {
         this.userService = userService;
+        this.ndjsonStreams = ndjsonStreams;
     }
 
     @GetMapping
@@ -32,10 +39,14 @@ public class UserController {
         return ResponseEntity.ok(new ApiResponse<>(true, "Users retrieved", dtos));
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        return ndjsonStreams.stream(userService::streamAllUsers, userService::convertToDto);
+    }
+
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<UserDto>> getUser(@PathVariable String id) {
-        System.out.println(3453);
         UserEntity user = userService.getUserById(id);
         if (user != null) {
             return ResponseEntity.ok(new ApiResponse<>(true, "User found", userService.convertToDto(user)));
@@ -45,9 +56,9 @@ public class UserController {
     }
 
     @GetMapping("/me")
-    public ResponseEntity<ApiResponse<UserDto>> getCurrentUser() {
-    // Get the user from the security context
-    UserEntity user = (UserEntity) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    public ResponseEntity<ApiResponse<UserDto>> getCurrentUser(@CurrentUserId String userId) {
+    // Load the full record, the security context may only hold the token claims
+    UserEntity user = userService.getUserById(userId);
     if(user != null){
         return ResponseEntity.ok(new ApiResponse<>(true, "User found", userService.convertToDto(user)));
     }
@@ -63,6 +74,8 @@ public class UserController {
         } catch (IllegalArgumentException ex) { // User already exists
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ApiResponse<>(false, ex.getMessage(), null));
+        } catch (PasswordHashingBusyException ex) {
+            return serviceBusy(ex);
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An error occurred during registration.", null));
@@ -75,6 +88,8 @@ public class UserController {
         try {
             AuthResponseDto authResponse = userService.authenticateUser(loginDto);
             return ResponseEntity.ok(new ApiResponse<>(true, "Login Successful", authResponse));
+        } catch (PasswordHashingBusyException ex) {
+            return serviceBusy(ex);
         } catch (AuthenticationException ex) {
             if (ex instanceof BadCredentialsException) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -87,13 +102,10 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserDto>> updateUser(@PathVariable String id, @RequestBody UserDto userDto) {
+    public ResponseEntity<ApiResponse<UserDto>> updateUser(@PathVariable String id, @RequestBody UserDto userDto, @CurrentUserId String currentUserId) {
         try {
-            // Get the user from the security context to check authorization
-            UserEntity currentUser = (UserEntity) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            
             // Ensure the user is updating their own record
-            if (!currentUser.getId().equals(id)) {
+            if (!currentUserId.equals(id)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(new ApiResponse<>(false, "You can only update your own profile", null));
             }
@@ -109,7 +121,6 @@ public class UserController {
 
     @PostMapping("/validateTokens")
     public ResponseEntity<ApiResponse<AuthResponseDto>> validateTokens(@RequestBody TokenDto dto) {
-        System.out.println(12345);
         try {
             AuthResponseDto tokens = userService.validateTokens(dto.getAccessToken(), dto.getRefreshToken());
             return ResponseEntity.ok(new ApiResponse<>(true, "Tokens valid", tokens));
@@ -131,10 +142,33 @@ public class UserController {
         }
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<String>> logout(@RequestBody TokenDto tokenDto) {
+        try {
+            userService.logout(tokenDto.getRefreshToken());
+            return ResponseEntity.ok(new ApiResponse<>(true, "Logged out", null));
+        } catch (AuthenticationException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, "Invalid refresh token", null));
+        }
+    }
+
+    @PostMapping("/logout/all")
+    public ResponseEntity<ApiResponse<String>> logoutEverywhere(@CurrentUserId String userId) {
+        userService.logoutEverywhere(userId);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Logged out of all sessions", null));
+    }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<String>> deleteUser(@PathVariable String id) {
         userService.deleteUser(id);
         return ResponseEntity.ok(new ApiResponse<>(true, "User deleted", null));
     }
+
+    // Password hashing pool is saturated, ask the client to retry instead of queueing more work
+    private <T> ResponseEntity<ApiResponse<T>> serviceBusy(PasswordHashingBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>(false, ex.getMessage(), null));
+    }
 }
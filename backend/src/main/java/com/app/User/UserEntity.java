@@ -41,6 +41,9 @@ public class UserEntity implements UserDetails {
     @DBRef
     private List<Role> roles;
 
+    // Copied into access tokens; bumping it makes tokens issued before the change stale
+    private long tokenVersion;
+
     // Constructor with roles
     public UserEntity(String firstName, String lastName, String email,
                       String phoneNumber, String password, List<Role> roles,
@@ -3,10 +3,14 @@ package com.app.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends MongoRepository<UserEntity, String> {
 
     Optional<UserEntity> findByEmail(String email);
 
     Boolean existsByEmail(String email);
+
+    // Reads from a cursor; the caller must close the stream
+    Stream<UserEntity> streamAllBy();
 }
\ No newline at end of file
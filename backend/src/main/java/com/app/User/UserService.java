@@ -1,12 +1,22 @@
 package com.app.User;
 
 import com.app.Dto.*;
+import com.app.security.CustomUserDetailsService;
 import com.app.security.JWTGenerator;
+import com.app.security.JwtCodec;
+import com.app.security.RefreshTokenService;
 import com.app.Role.Role;
 import com.app.Role.RoleRepository;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,6 +25,7 @@ import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
@@ -24,19 +35,30 @@ public class UserService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final JWTGenerator jwtGenerator;
+    private final CustomUserDetailsService userDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final MongoTemplate mongoTemplate;
 
-    public UserService(UserRepository userRepository, AuthenticationManager authenticationManager, RoleRepository roleRepository, PasswordEncoder passwordEncoder, JWTGenerator jwtGenerator) {
+    public UserService(UserRepository userRepository, AuthenticationManager authenticationManager, RoleRepository roleRepository, PasswordEncoder passwordEncoder, JWTGenerator jwtGenerator, CustomUserDetailsService userDetailsService, RefreshTokenService refreshTokenService, MongoTemplate mongoTemplate) {
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtGenerator = jwtGenerator;
+        this.userDetailsService = userDetailsService;
+        this.refreshTokenService = refreshTokenService;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public List<UserEntity> getAllUsers() {
         return userRepository.findAll();
     }
 
+    // Cursor-backed read of all users; the caller must close the stream
+    public Stream<UserEntity> streamAllUsers() {
+        return userRepository.streamAllBy();
+    }
+
     public UserEntity getUserById(String id) {
         return userRepository.findById(id).orElse(null);
     }
@@ -68,13 +90,15 @@ public class UserService {
         UserEntity user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Update user information
+        // Update user information; only the changed fields are written so a concurrent
+        // tokenVersion bump or password rehash is never overwritten
+        Update update = new Update();
         if (userDto.getFirstName() != null) {
-            user.setFirstName(userDto.getFirstName());
+            update.set("firstName", userDto.getFirstName());
         }
         
         if (userDto.getLastName() != null) {
-            user.setLastName(userDto.getLastName());
+            update.set("lastName", userDto.getLastName());
         }
         
         // Check if email is being changed and not already taken
@@ -82,20 +106,29 @@ public class UserService {
             if (userRepository.existsByEmail(userDto.getEmail())) {
                 throw new IllegalArgumentException("Email already in use");
             }
-            user.setEmail(userDto.getEmail());
+            update.set("email", userDto.getEmail());
         }
         
         if (userDto.getPhoneNumber() != null) {
-            user.setPhoneNumber(userDto.getPhoneNumber());
+            update.set("phoneNumber", userDto.getPhoneNumber());
         }
         
         if (userDto.getRecoveryEmail() != null) {
-            user.setRecoveryEmail(userDto.getRecoveryEmail());
+            update.set("recoveryEmail", userDto.getRecoveryEmail());
         }
         
         // We don't update password or roles through this method for security reasons
+        if (update.getUpdateObject().isEmpty()) {
+            return user;
+        }
         
-        return userRepository.save(user);
+        UserEntity savedUser = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), UserEntity.class);
+        if (savedUser == null) {
+            throw new RuntimeException("User not found");
+        }
+        userDetailsService.evictUser(id);
+        return savedUser;
     }
 
     /*
@@ -131,15 +164,15 @@ public class UserService {
     }
 
     public AuthResponseDto authenticateUser(LoginDto loginDto) {
+        // Only the BCrypt check runs on the hashing pool (see PooledPasswordEncoder); the lookup stays here
         Authentication authentication = authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(loginDto.getEmail(), loginDto.getPassword()));
 
         UserEntity user = (UserEntity) authentication.getPrincipal();
         String userId = user.getId();
-        System.out.println("User ID: " + userId);
 
-        String refreshToken = jwtGenerator.generateRefreshToken(authentication);
-        String accessToken = jwtGenerator.generateAccessToken(userId);
+        String refreshToken = refreshTokenService.issue(userId);
+        String accessToken = jwtGenerator.generateAccessToken(user);
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
         // Getting the user
@@ -151,42 +184,84 @@ public class UserService {
 
     public AuthResponseDto validateTokens(String accessToken, String refreshToken) {
 
-        // Validate refresh Token, throws error if token not valid
-        jwtGenerator.validateToken(refreshToken);
-        Optional<UserEntity> user = userRepository.findById(jwtGenerator.getUserIdFromJWT(accessToken));
-        UserDto userDto = convertToDto(user.get());
+        // Validate refresh Token, throws error if token not valid or revoked
+        JwtCodec.ParsedToken parsedRefreshToken = parseRefreshToken(refreshToken);
+        refreshTokenService.assertActive(parsedRefreshToken);
+        UserEntity user = findTokenOwner(parsedRefreshToken);
+        UserDto userDto = convertToDto(user);
 
         try { // Validate Access Token
-            jwtGenerator.validateToken(accessToken);
+            JwtCodec.ParsedToken parsedAccessToken = jwtGenerator.parse(accessToken);
+            if (!parsedAccessToken.isType(JwtCodec.ACCESS_TYPE) || !parsedAccessToken.subject().equals(user.getId())) {
+                throw new AuthenticationCredentialsNotFoundException("Access token does not match refresh token");
+            }
             // Both Tokens valid, user is authenticated
             return new AuthResponseDto(accessToken, refreshToken, userDto);
-        } catch (Exception e) { // Access token invalid, create new one using refresh token
-            String newToken = jwtGenerator.generateAccessToken(jwtGenerator.getUserIdFromJWT(refreshToken));
+        } catch (AuthenticationException e) { // Access token invalid, create new one using refresh token
+            String newRefreshToken = refreshTokenService.rotate(parsedRefreshToken);
+            String newToken = jwtGenerator.generateAccessToken(user);
 
-            return new AuthResponseDto(newToken, refreshToken, userDto);
+            return new AuthResponseDto(newToken, newRefreshToken, userDto);
         }
     }
 
     public AuthResponseDto refreshAccessToken(String refreshToken) {
         // Validate the refresh token
-        jwtGenerator.validateToken(refreshToken);
-    
-        String userId = jwtGenerator.getUserIdFromJWT(refreshToken);
-    
+        JwtCodec.ParsedToken parsedRefreshToken = parseRefreshToken(refreshToken);
+
         // Retrieve the user
-        Optional<UserEntity> userOpt = userRepository.findById(userId);
-        if (!userOpt.isPresent()) {
+        UserEntity user = findTokenOwner(parsedRefreshToken);
+        UserDto userDto = convertToDto(user);
+
+        // The presented refresh token is used up and replaced by a new one
+        String newRefreshToken = refreshTokenService.rotate(parsedRefreshToken);
+
+        // Generate a new access token
+        String newAccessToken = jwtGenerator.generateAccessToken(user);
+
+        return new AuthResponseDto(newAccessToken, newRefreshToken, userDto);
+    }
+
+    /*
+     * Revokes a single refresh token, ending that session.
+     */
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(parseRefreshToken(refreshToken));
+    }
+
+    /*
+     * Ends every session of the user: refresh tokens are revoked and access tokens issued so far
+     * stop being accepted, at once on this instance and within the token version cache TTL on others.
+     */
+    public void logoutEverywhere(String userId) {
+        refreshTokenService.revokeAllForUser(userId);
+        // Bumped atomically in the database so concurrent logouts each advance the version
+        UserEntity user = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("tokenVersion", 1), FindAndModifyOptions.options().returnNew(true), UserEntity.class);
+        if (user == null) {
             throw new RuntimeException("User not found");
         }
-        UserDto userDto = convertToDto(userOpt.get());
-    
-        // Generate a new access token
-        String newAccessToken = jwtGenerator.generateAccessToken(userId);
-    
-        return new AuthResponseDto(newAccessToken, refreshToken, userDto);
+        userDetailsService.revokeAccessTokens(userId, user.getTokenVersion());
+    }
+
+    private JwtCodec.ParsedToken parseRefreshToken(String refreshToken) {
+        JwtCodec.ParsedToken parsedToken = jwtGenerator.parse(refreshToken);
+        if (!parsedToken.isType(JwtCodec.REFRESH_TYPE)) {
+            throw new AuthenticationCredentialsNotFoundException("JWT is not a refresh token");
+        }
+        return parsedToken;
+    }
+
+    private UserEntity findTokenOwner(JwtCodec.ParsedToken token) {
+        return userRepository.findById(token.subject())
+                .orElseThrow(() -> new AuthenticationCredentialsNotFoundException("User not found"));
     }
     
     public void deleteUser(String id) {
         userRepository.deleteById(id);
+        // Access tokens of a deleted user must not keep authorizing requests; other instances
+        // find no user once their cached token version expires
+        userDetailsService.revokeAccessTokens(id, Long.MAX_VALUE);
+        refreshTokenService.revokeAllForUser(id);
     }
 }
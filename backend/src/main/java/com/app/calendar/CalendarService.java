@@ -59,8 +59,7 @@ public class CalendarService {
 
     public List<CalendarEvent> syncTodosToCalendar(String userID) {
         // Fetch all ToDo events for this user.
-        List<TodoEntity> todos = todoService.       
-        getAllTodos(userID, LocalDateTime.MIN ,LocalDateTime.MAX);
+        List<TodoEntity> todos = todoService.getAllTodos(userID, null, null);
         List<CalendarEvent> createdEvents = new ArrayList<>();
         
         if (todos != null) {
@@ -0,0 +1,33 @@
+package com.app.common;
+
+/*
+ * Entity tags for @Version entities: the version number in quotes, e.g. "3".
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /*
+     * The version named by an If-Match header, or null when there is no header or it is "*".
+     * Throws IllegalArgumentException for anything else that is not a single entity tag from of().
+     */
+    public static Long parseIfMatch(String header) {
+        if (header == null || header.isBlank() || header.trim().equals("*")) {
+            return null;
+        }
+        String tag = header.trim();
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unsupported If-Match value: " + header);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.app.common;
+
+import com.app.Dto.PageDto;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * Position in a listing ordered by (sortValue, _id), or by _id alone when sortValue is null.
+ * Clients receive it as an opaque base64url string and send it back to get the next page,
+ * so pages are read with an indexed range query instead of skip/offset.
+ */
+public record KeysetCursor(Double sortValue, String id) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = (sortValue == null ? "" : Double.toString(sortValue)) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Decodes a cursor sent by a client for a listing ordered by a sort field; null or empty means the first page.
+     * Throws a 400 ResponseStatusException if the cursor was not produced by encode() or has no sort value.
+     */
+    public static KeysetCursor decode(String cursor) {
+        KeysetCursor decoded = decodeIdOnly(cursor);
+        if (decoded != null && (decoded.sortValue() == null || !Double.isFinite(decoded.sortValue()))) {
+            throw invalidCursor();
+        }
+        return decoded;
+    }
+
+    /*
+     * Decodes a cursor for a listing ordered by _id alone, where the sort value is absent.
+     */
+    public static KeysetCursor decodeIdOnly(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        int separator = raw.indexOf(SEPARATOR);
+        if (separator < 0 || separator == raw.length() - 1) {
+            throw invalidCursor();
+        }
+        try {
+            Double sortValue = separator == 0 ? null : Double.valueOf(raw.substring(0, separator));
+            return new KeysetCursor(sortValue, raw.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    static ResponseStatusException invalidCursor() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    /*
+     * Query for the page after the cursor: the filter, ordered by (sortField, _id), fetching one extra row
+     * to know whether there is a next page. Pass a null sortField to order by _id only.
+     */
+    public static Query pageQuery(Criteria filter, String sortField, KeysetCursor after, int limit) {
+        return Query.query(pageCriteria(filter, sortField, after)).with(pageSort(sortField)).limit(limit + 1);
+    }
+
+    // The filter restricted to rows after the cursor, for callers building their own query or aggregation
+    public static Criteria pageCriteria(Criteria filter, String sortField, KeysetCursor after) {
+        Criteria criteria = filter;
+        if (after != null) {
+            Criteria position;
+            if (sortField == null) {
+                position = Criteria.where("_id").gt(after.id());
+            } else {
+                position = new Criteria().orOperator(
+                    Criteria.where(sortField).gt(after.sortValue()),
+                    Criteria.where(sortField).is(after.sortValue()).and("_id").gt(after.id()));
+            }
+            criteria = new Criteria().andOperator(filter, position);
+        }
+        return criteria;
+    }
+
+    public static Sort pageSort(String sortField) {
+        return sortField == null ? Sort.by("_id") : Sort.by(sortField).and(Sort.by("_id"));
+    }
+
+    /*
+     * Builds the page from rows fetched with pageQuery (at most limit + 1 of them).
+     */
+    public static <E, D> PageDto<D> toPage(List<E> rows, int limit, Function<E, KeysetCursor> cursorOf, Function<E, D> toDto) {
+        boolean hasMore = rows.size() > limit;
+        List<E> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(limit - 1)).encode() : null;
+        return new PageDto<>(pageRows.stream().map(toDto).toList(), nextCursor);
+    }
+}
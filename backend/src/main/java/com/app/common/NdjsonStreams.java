@@ -0,0 +1,84 @@
+package com.app.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/*
+ * Writes collection endpoints as newline-delimited JSON (one document per line) straight from a Mongo cursor.
+ * Rows are converted and written in small chunks, so memory use does not grow with the collection
+ * and the first rows reach the client before the query has finished.
+ */
+@Component
+public class NdjsonStreams {
+
+    // Rows are written and flushed in chunks of this size rather than per row
+    private static final int FLUSH_EVERY = 64;
+
+    private final ObjectMapper objectMapper;
+
+    public NdjsonStreams(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /*
+     * The source is opened on the response thread and closed (releasing the cursor) once written.
+     */
+    public <E, D> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<E>> source, Function<E, D> toDto) {
+        return stream(source, toDto, chunk -> chunk);
+    }
+
+    /*
+     * As above, but each chunk of rows goes through enrichChunk before it is written, so lookups
+     * for the rows (e.g. related documents) take one query per chunk instead of one per row.
+     */
+    public <E, D> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<E>> source, Function<E, D> toDto,
+                                                               UnaryOperator<List<D>> enrichChunk) {
+        StreamingResponseBody body = out -> {
+            try (Stream<E> rows = source.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+
+                // The first row is a chunk of its own so it reaches the client right away
+                int chunkSize = 1;
+                List<D> chunk = new ArrayList<>(FLUSH_EVERY);
+                Iterator<E> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    chunk.add(toDto.apply(iterator.next()));
+                    if (chunk.size() == chunkSize) {
+                        writeChunk(generator, enrichChunk.apply(chunk));
+                        chunk.clear();
+                        chunkSize = FLUSH_EVERY;
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    writeChunk(generator, enrichChunk.apply(chunk));
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static <D> void writeChunk(JsonGenerator generator, List<D> chunk) throws IOException {
+        for (D row : chunk) {
+            generator.writeObject(row);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+}
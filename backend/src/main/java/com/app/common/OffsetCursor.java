@@ -0,0 +1,41 @@
+package com.app.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * Position in a listing that can only be paged by offset, such as an array embedded in one document
+ * and read with $slice. Clients receive it as an opaque base64url string, like KeysetCursor.
+ */
+public record OffsetCursor(int offset) {
+
+    private static final String PREFIX = "o:";
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Decodes a cursor sent by a client; null or empty means the first page.
+     * Throws a 400 ResponseStatusException if the cursor was not produced by encode().
+     */
+    public static OffsetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw KeysetCursor.invalidCursor();
+            }
+            int offset = Integer.parseInt(raw.substring(PREFIX.length()));
+            if (offset < 0) {
+                throw KeysetCursor.invalidCursor();
+            }
+            return new OffsetCursor(offset);
+        } catch (IllegalArgumentException e) {
+            // Covers malformed base64 and NumberFormatException, including offsets beyond int range
+            throw KeysetCursor.invalidCursor();
+        }
+    }
+}
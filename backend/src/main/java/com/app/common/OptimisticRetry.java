@@ -0,0 +1,71 @@
+package com.app.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Runs read-modify-write updates of @Version entities. An attempt reloads the entity, applies
+ * the change and saves it; when the save loses a version race the attempt is repeated after a
+ * random backoff (full jitter, doubling per attempt) up to max-attempts times.
+ *
+ * When the client named the version it edited (If-Match), a conflict means its copy is stale,
+ * so the attempt is not retried and the OptimisticLockingFailureException reaches the caller.
+ *
+ * Meters, tagged with the entity name: optimistic.lock.writes, optimistic.lock.conflicts,
+ * optimistic.lock.retries and optimistic.lock.exhausted.
+ */
+@Component
+public class OptimisticRetry {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+
+    public OptimisticRetry(MeterRegistry meterRegistry,
+                           @Value("${optimistic-locking.max-attempts:5}") int maxAttempts,
+                           @Value("${optimistic-locking.base-backoff:PT0.01S}") Duration baseBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffNanos = baseBackoff.toNanos();
+    }
+
+    public <T> T run(String entity, Long expectedVersion, Supplier<T> attempt) {
+        meterRegistry.counter("optimistic.lock.writes", "entity", entity).increment();
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("optimistic.lock.conflicts", "entity", entity).increment();
+                if (expectedVersion != null) {
+                    throw e;
+                }
+                if (attemptNumber >= maxAttempts) {
+                    meterRegistry.counter("optimistic.lock.exhausted", "entity", entity).increment();
+                    throw e;
+                }
+                meterRegistry.counter("optimistic.lock.retries", "entity", entity).increment();
+                backOff(attemptNumber, e);
+            }
+        }
+    }
+
+    private void backOff(int attemptNumber, OptimisticLockingFailureException conflict) {
+        long ceiling = baseBackoffNanos << Math.min(attemptNumber - 1, 10);
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
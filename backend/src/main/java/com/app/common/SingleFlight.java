@@ -0,0 +1,129 @@
+package com.app.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ * Coalesces concurrent loads of the same key: the first caller runs the loader and every caller
+ * that arrives while it is in flight waits for the same result instead of issuing its own query.
+ * Results, including "not found", can additionally be kept for a short TTL.
+ *
+ * Writers must call invalidate(key) after changing the underlying data. A load that was already
+ * in flight when the key was invalidated still answers its waiting callers but is not cached.
+ *
+ * Created through SingleFlightFactory; meters are tagged with the name given there.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // Null when caching is disabled
+    private final Cache<K, Optional<V>> results;
+
+    private final Counter led;
+    private final Counter coalesced;
+
+    SingleFlight(String name, MeterRegistry meterRegistry, Duration ttl, long maxSize) {
+        if (ttl.isZero() || ttl.isNegative()) {
+            this.results = null;
+        } else {
+            this.results = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, results, name);
+        }
+
+        this.led = Counter.builder("single.flight.loads")
+                .description("Lookups that ran the loader themselves")
+                .tags("name", name, "result", "led")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("single.flight.loads")
+                .description("Lookups that waited on a load already in flight")
+                .tags("name", name, "result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("single.flight.in.flight", inFlight, ConcurrentHashMap::size)
+                .description("Loads currently in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /*
+     * Returns the value for key, or null if the loader found nothing. Exceptions thrown by the
+     * loader are rethrown to every caller waiting on that load.
+     */
+    public V get(K key, Function<K, V> loader) {
+        if (results != null) {
+            Optional<V> cached = results.getIfPresent(key);
+            if (cached != null) {
+                return cached.orElse(null);
+            }
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        led.increment();
+        try {
+            V value = loader.apply(key);
+            // Cache under the map's lock for this key so a concurrent invalidate cannot interleave
+            inFlight.computeIfPresent(key, (k, current) -> {
+                if (current != load) {
+                    return current;
+                }
+                if (results != null) {
+                    results.put(k, Optional.ofNullable(value));
+                }
+                return null;
+            });
+            load.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Errors included: an incomplete load would block every later caller for the key
+            inFlight.remove(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /*
+     * Drops the cached result for key and detaches any load in flight, so the next read goes to the database.
+     */
+    public void invalidate(K key) {
+        inFlight.compute(key, (k, current) -> {
+            if (results != null) {
+                results.invalidate(k);
+            }
+            return null;
+        });
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
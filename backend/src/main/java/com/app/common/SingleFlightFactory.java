@@ -0,0 +1,30 @@
+package com.app.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/*
+ * Creates SingleFlight instances sharing the configured result TTL and size limit.
+ */
+@Component
+public class SingleFlightFactory {
+
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final long maxSize;
+
+    public SingleFlightFactory(MeterRegistry meterRegistry,
+                               @Value("${single-flight.cache.ttl:PT2S}") Duration ttl,
+                               @Value("${single-flight.cache.max-size:10000}") long maxSize) {
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    public <K, V> SingleFlight<K, V> create(String name) {
+        return new SingleFlight<>(name, meterRegistry, ttl, maxSize);
+    }
+}
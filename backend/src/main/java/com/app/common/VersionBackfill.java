@@ -0,0 +1,36 @@
+package com.app.common;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/*
+ * Documents stored before an entity gained its @Version field have no version, and Spring Data
+ * would treat them as new and try to insert them on save. On startup, before the web server accepts
+ * requests, this sets version 0 on every such document of every versioned entity.
+ */
+@Component
+public class VersionBackfill implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+
+    public VersionBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (MongoPersistentEntity<?> entity : mongoTemplate.getConverter().getMappingContext().getPersistentEntities()) {
+            if (!entity.hasVersionProperty() || entity.getCollection() == null) {
+                continue;
+            }
+            String field = entity.getRequiredVersionProperty().getFieldName();
+            mongoTemplate.updateMulti(Query.query(Criteria.where(field).exists(false)),
+                    new Update().set(field, 0L), entity.getCollection());
+        }
+    }
+}
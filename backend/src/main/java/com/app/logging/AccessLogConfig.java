@@ -0,0 +1,23 @@
+package com.app.logging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogConfig {
+
+    // Registered ahead of the security filter chain so rejected and rate-limited requests are logged too
+    @Bean
+    @ConditionalOnProperty(prefix = "access-log", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLogProperties properties) {
+        FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>(new AccessLogFilter(properties));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,109 @@
+package com.app.logging;
+
+import com.app.security.JWTAuthenticationFilter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Writes one line per request to the "ACCESS" logger: method, route template, user id, status and latency.
+ * The logger is backed by an async appender (see logback-spring.xml), so the request thread only
+ * enqueues the event. Requests are sampled per route prefix; server errors are always logged.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS");
+
+    private final double defaultSampleRate;
+
+    // Sorted longest prefix first so the most specific rate applies
+    private final List<Map.Entry<String, Double>> sampleRates;
+
+    public AccessLogFilter(AccessLogProperties properties) {
+        this.defaultSampleRate = properties.defaultSampleRate();
+        this.sampleRates = properties.sampleRates().entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Double> e) -> e.getKey().length()).reversed())
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!ACCESS_LOG.isInfoEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // Streaming responses are written after this returns; log once the async request completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        log(request, response.getStatus(), start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                log(request, completed ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR, start);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, int status, long start) {
+        String route = routeOf(request);
+        if (status >= 500 || sampled(route)) {
+            long latencyMicros = (System.nanoTime() - start) / 1_000;
+            ACCESS_LOG.info("method={} route={} user={} status={} latencyUs={}",
+                    request.getMethod(), route, request.getAttribute(JWTAuthenticationFilter.USER_ID_ATTRIBUTE),
+                    status, latencyMicros);
+        }
+    }
+
+    // Route template such as /api/Tutor/{id}, or the raw path if no handler matched
+    private static String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    private boolean sampled(String route) {
+        double rate = defaultSampleRate;
+        for (Map.Entry<String, Double> entry : sampleRates) {
+            if (route.startsWith(entry.getKey())) {
+                rate = entry.getValue();
+                break;
+            }
+        }
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
@@ -0,0 +1,18 @@
+package com.app.logging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/*
+ * Settings for the access log. Sample rates are fractions between 0 and 1 keyed by path prefix,
+ * e.g. access-log.sample-rates[/api/Tutor]=0.1; the longest matching prefix wins.
+ */
+@ConfigurationProperties(prefix = "access-log")
+public record AccessLogProperties(Double defaultSampleRate, Map<String, Double> sampleRates) {
+
+    public AccessLogProperties {
+        defaultSampleRate = defaultSampleRate == null ? 1.0 : defaultSampleRate;
+        sampleRates = sampleRates == null ? Map.of() : Map.copyOf(sampleRates);
+    }
+}
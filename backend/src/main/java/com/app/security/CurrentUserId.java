@@ -0,0 +1,16 @@
+package com.app.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Injects the id of the authenticated user into a controller method parameter.
+ * The id is resolved from the JWT that JWTAuthenticationFilter already verified,
+ * so controllers never have to parse the token again.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUserId {
+}
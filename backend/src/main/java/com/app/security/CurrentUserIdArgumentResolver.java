@@ -0,0 +1,39 @@
+package com.app.security;
+
+import com.app.User.UserEntity;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+public class CurrentUserIdArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUserId.class)
+                && String.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        // Set by JWTAuthenticationFilter once the token has been verified
+        Object userId = webRequest.getAttribute(JWTAuthenticationFilter.USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (userId instanceof String) {
+            return userId;
+        }
+
+        // Requests authenticated some other way (e.g. http basic) still carry the user entity
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserEntity user) {
+            return user.getId();
+        }
+
+        throw new AuthenticationCredentialsNotFoundException("No authenticated user for this request");
+    }
+}
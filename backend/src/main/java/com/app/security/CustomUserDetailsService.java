@@ -1,18 +1,58 @@
 package com.app.security;
 
+import com.app.User.UserEntity;
 import com.app.User.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    // Users looked up by id on every authenticated request, bounded in size and age
+    private final Cache<String, UserDetails> usersById;
+
+    // Persisted token version per user, re-read after a short TTL so revocations made on other
+    // instances take effect quickly without a database read on every request
+    private final Cache<String, Long> tokenVersions;
+
+    private final MongoTemplate mongoTemplate;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    MongoTemplate mongoTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${security.user-cache.max-size:10000}") long maxSize,
+                                    @Value("${security.user-cache.ttl:PT5M}") Duration ttl,
+                                    @Value("${security.token-version-cache.ttl:PT10S}") Duration tokenVersionTtl) {
         this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "userDetailsById");
+        this.tokenVersions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(tokenVersionTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokenVersions, "tokenVersionsById");
     }
 
     @Override
@@ -21,8 +61,55 @@ public class CustomUserDetailsService implements UserDetailsService {
                 new UsernameNotFoundException("User Not Found"));
     }
 
+    /*
+     * Called by the authentication provider after a successful login
+     * when the stored hash should be upgraded to the current encoder settings.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserEntity userEntity = (UserEntity) user;
+        userEntity.setPassword(newPassword);
+        // Only the hash is written, so a concurrent tokenVersion bump is never overwritten
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userEntity.getId())),
+                new Update().set("password", newPassword), UserEntity.class);
+        evictUser(userEntity.getId());
+        return userEntity;
+    }
+
     public UserDetails loadUserById(String id) throws UsernameNotFoundException {
-        return userRepository.findById(id).orElseThrow(() ->
-                new UsernameNotFoundException("User not found with id: " + id));
+        return usersById.get(id, key -> userRepository.findById(key).orElseThrow(() ->
+                new UsernameNotFoundException("User not found with id: " + key)));
+    }
+
+    /*
+     * Drops the cached user so the next request reloads it from the database.
+     * Must be called whenever a user record is changed or deleted.
+     */
+    public void evictUser(String id) {
+        usersById.invalidate(id);
+    }
+
+    /*
+     * Returns true if an access token carrying tokenVersion was issued at or after the user's
+     * persisted token version. Tokens of users that no longer exist are never current.
+     */
+    public boolean isTokenVersionCurrent(String id, long tokenVersion) {
+        return tokenVersion >= tokenVersions.get(id, this::loadTokenVersion);
+    }
+
+    /*
+     * Applies a token version that was just persisted for the user, so this instance rejects
+     * older access tokens immediately instead of after the version cache expires.
+     */
+    public void revokeAccessTokens(String id, long currentVersion) {
+        tokenVersions.put(id, currentVersion);
+        evictUser(id);
+    }
+
+    private long loadTokenVersion(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("tokenVersion");
+        UserEntity user = mongoTemplate.findOne(query, UserEntity.class);
+        return user == null ? Long.MAX_VALUE : user.getTokenVersion();
     }
 }
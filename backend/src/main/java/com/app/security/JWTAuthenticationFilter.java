@@ -1,10 +1,14 @@
 package com.app.security;
 
+import com.app.User.UserEntity;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,32 +17,60 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.lang.NonNull;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
+    // Request attribute holding the verified user id, read by CurrentUserIdArgumentResolver
+    public static final String USER_ID_ATTRIBUTE = JWTAuthenticationFilter.class.getName() + ".USER_ID";
+
     private final JWTGenerator tokenGenerator;
 
     private final CustomUserDetailsService customUserDetailsService;
 
-    public JWTAuthenticationFilter(JWTGenerator tokenGenerator, CustomUserDetailsService customUserDetailsService) {
+    // Authorize from the roles claim instead of loading the user on every request
+    private final boolean statelessAuth;
+
+    public JWTAuthenticationFilter(JWTGenerator tokenGenerator, CustomUserDetailsService customUserDetailsService, boolean statelessAuth) {
         this.tokenGenerator = tokenGenerator;
         this.customUserDetailsService = customUserDetailsService;
+        this.statelessAuth = statelessAuth;
     }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
             throws ServletException, IOException {
         String token = getJWTFromRequest(request);
-        System.out.println("Request: " + request.getRequestURL());
 
-        // Find token and check if it is valid
-        if (StringUtils.hasText(token) && tokenGenerator.validateToken(token)) {
+        // Find token and check if it is valid, parsing it only once per request
+        if (StringUtils.hasText(token)) {
+            JwtCodec.ParsedToken parsedToken = tokenGenerator.parse(token);
+            if (!parsedToken.isType(JwtCodec.ACCESS_TYPE)) {
+                throw new AuthenticationCredentialsNotFoundException("JWT is not an access token");
+            }
+            Claims claims = parsedToken.claims();
+
             // Gets the user that is creating the request
-            String userId = tokenGenerator.getUserIdFromJWT(token);
-            UserDetails userDetails = customUserDetailsService.loadUserById(userId);
+            String userId = parsedToken.subject();
+            request.setAttribute(USER_ID_ATTRIBUTE, userId);
+
+            // Tokens issued before the user's last logout-everywhere (or deletion) are revoked
+            long tokenVersion = tokenGenerator.getTokenVersionFromClaims(claims);
+            if (!customUserDetailsService.isTokenVersionCurrent(userId, tokenVersion)) {
+                throw new AuthenticationCredentialsNotFoundException("JWT was revoked");
+            }
 
-            UsernamePasswordAuthenticationToken authenticationToken =
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            UsernamePasswordAuthenticationToken authenticationToken = statelessAuth
+                    ? authenticationFromClaims(userId, claims)
+                    : null;
+            if (authenticationToken == null) {
+                UserDetails userDetails = customUserDetailsService.loadUserById(userId);
+                if (userDetails instanceof UserEntity user && tokenVersion < user.getTokenVersion()) {
+                    throw new AuthenticationCredentialsNotFoundException("JWT was revoked");
+                }
+                authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            }
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -48,6 +80,23 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /*
+     * Builds the authentication from the token alone, with the user id as principal.
+     * Returns null when the token has no roles claim, so the caller falls back to
+     * loading the user from the database.
+     */
+    private UsernamePasswordAuthenticationToken authenticationFromClaims(String userId, Claims claims) {
+        List<String> roles = tokenGenerator.getRolesFromClaims(claims);
+        if (roles == null) {
+            return null;
+        }
+
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+        return new UsernamePasswordAuthenticationToken(userId, null, authorities);
+    }
+
     public static String getJWTFromRequest(HttpServletRequest request) {        
         String bearerToken = request.getHeader("Authorization");
 
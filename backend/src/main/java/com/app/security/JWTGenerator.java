@@ -1,85 +1,86 @@
 package com.app.security;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.stereotype.Component;
 
+import com.app.Role.Role;
 import com.app.User.UserEntity;
 
-import javax.crypto.SecretKey;
-import java.util.Base64;
-import java.util.Date;
-// import java.util.List;
-// import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class JWTGenerator {
 
-    // Secret Key
-    private final SecretKey key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SecurityConstants.JWTSECRET));
+    // Claims carried by access tokens so the filter can authorize without loading the user
+    public static final String ROLES_CLAIM = "ROLES";
+    public static final String TOKEN_VERSION_CLAIM = "VERSION";
+
+    private final JwtCodec jwtCodec;
+
+    public JWTGenerator(JwtCodec jwtCodec) {
+        this.jwtCodec = jwtCodec;
+    }
     
-    public String generateRefreshToken(Authentication authentication) {
-        UserEntity user = (UserEntity) authentication.getPrincipal();
-        String userId = user.getId();  // Get the id
-        Date currentDate = new Date();
-        Date expireDate = new Date(currentDate.getTime() + SecurityConstants.JWTEXPIRATIONREFRESH);
-
-        return Jwts.builder()
-                .setSubject(userId)  // Use the id as the subject
-                .setIssuedAt(currentDate)
-                .setExpiration(expireDate)
-                .signWith(key)
-                .compact();
+    /*
+     * Refresh tokens are issued through RefreshTokenService, which records the token id (jti)
+     * so the token can be rotated and revoked.
+     */
+    public String generateRefreshToken(String userId, String tokenId) {
+        // Use the id as the subject
+        return jwtCodec.encode(userId, JwtCodec.REFRESH_TYPE, SecurityConstants.JWTEXPIRATIONREFRESH, Map.of(Claims.ID, tokenId));
     }
 
-    public String generateAccessToken(String userId) {
-        Date currentDate = new Date();
-        Date expireDate = new Date(currentDate.getTime() + SecurityConstants.JWTEXPIRATIONACCESS);
+    public String generateAccessToken(UserEntity user) {
+        List<String> roles = user.getRoles() == null ? Collections.emptyList()
+                : user.getRoles().stream().map(Role::getName).collect(Collectors.toList());
 
-        return Jwts.builder()
-                .setSubject(userId) // Set the subject to the user id
-                .setIssuedAt(currentDate)
-                .setExpiration(expireDate)
-                .signWith(key)
-                .compact();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, roles);
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+
+        // Set the subject to the user id
+        return jwtCodec.encode(user.getId(), JwtCodec.ACCESS_TYPE, SecurityConstants.JWTEXPIRATIONACCESS, claims);
     }
 
 
     public String getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.getSubject();  // Retrieve the user id
+        return jwtCodec.parse(token).subject();  // Retrieve the user id
+    }
+
+    /*
+     * Verifies the token signature and expiry once and returns its contents.
+     * Throws AuthenticationCredentialsNotFoundException if the token is not valid.
+     */
+    public JwtCodec.ParsedToken parse(String token) {
+        return jwtCodec.parse(token);
     }
 
-    // public List<String> getRolesFromJWT(String token) {
-    //     Claims claims = Jwts.parserBuilder()
-    //             .setSigningKey(key)
-    //             .build()
-    //             .parseClaimsJws(token)
-    //             .getBody();
-        
-    //     List<?> rolesList = claims.get("ROLES", List.class);
-    //     List<String> roles = rolesList.stream()
-    //                                 .map(Object::toString)
-    //                                 .collect(Collectors.toList());
-    //     return roles;
-    // }
+    /*
+     * Returns the role names stored in already verified claims,
+     * or null if the token was issued before roles were added to access tokens.
+     */
+    public List<String> getRolesFromClaims(Claims claims) {
+        List<?> rolesList = claims.get(ROLES_CLAIM, List.class);
+        if (rolesList == null) {
+            return null;
+        }
+        return rolesList.stream()
+                        .map(Object::toString)
+                        .collect(Collectors.toList());
+    }
+
+    public long getTokenVersionFromClaims(Claims claims) {
+        Number version = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        return version == null ? 0L : version.longValue();
+    }
     
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        }
-        catch (Exception e) {
-            throw new AuthenticationCredentialsNotFoundException("JWT was expired or incorrect");
-        }
+        jwtCodec.parse(token);
+        return true;
     }
 }
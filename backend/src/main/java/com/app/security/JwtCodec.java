@@ -0,0 +1,132 @@
+package com.app.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Signs and verifies JWTs with a set of HMAC keys selected by the "kid" header.
+ * New tokens are signed with the active key, while tokens signed with any other
+ * configured key stay valid until they expire, so keys can be rotated without downtime.
+ */
+@Component
+public class JwtCodec {
+
+    public static final String TYPE_CLAIM = "TYPE";
+    public static final String ACCESS_TYPE = "access";
+    public static final String REFRESH_TYPE = "refresh";
+
+    // Tokens issued before key ids were introduced carry no "kid" and were signed with this key
+    static final String DEFAULT_KEY_ID = "default";
+
+    private final Map<String, SecretKey> keysById;
+    private final String activeKeyId;
+    private final SecretKey activeKey;
+
+    // Parsers are immutable and thread-safe; this one is built once and picks the key per token
+    private final JwtParser parser;
+
+    public JwtCodec(@Value("${security.jwt.keys:}") String keys,
+                    @Value("${security.jwt.active-key-id:" + DEFAULT_KEY_ID + "}") String activeKeyId) {
+        this.keysById = parseKeys(keys);
+        this.activeKeyId = activeKeyId;
+        this.activeKey = keysById.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalStateException("No JWT signing key configured with id: " + activeKeyId);
+        }
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // The adapter declares the raw JwsHeader, so the override has to match it
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyFor(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    public String encode(String subject, String type, long expirationMillis, Map<String, Object> claims) {
+        Date currentDate = new Date();
+        Date expireDate = new Date(currentDate.getTime() + expirationMillis);
+
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKeyId)
+                .addClaims(claims)
+                .setSubject(subject)
+                .claim(TYPE_CLAIM, type)
+                .setIssuedAt(currentDate)
+                .setExpiration(expireDate)
+                .signWith(activeKey)
+                .compact();
+    }
+
+    /*
+     * Verifies the signature and expiry of the token once and returns everything callers need from it.
+     * Throws AuthenticationCredentialsNotFoundException if the token is not valid.
+     */
+    public ParsedToken parse(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        }
+        catch (Exception e) {
+            throw new AuthenticationCredentialsNotFoundException("JWT was expired or incorrect");
+        }
+        return new ParsedToken(claims.getSubject(), claims.getExpiration(), claims.get(TYPE_CLAIM, String.class), claims);
+    }
+
+    private SecretKey keyFor(String keyId) {
+        SecretKey key = keysById.get(StringUtils.hasText(keyId) ? keyId : DEFAULT_KEY_ID);
+        if (key == null) {
+            throw new AuthenticationCredentialsNotFoundException("Unknown JWT key id: " + keyId);
+        }
+        return key;
+    }
+
+    /*
+     * Reads keys configured as "kid1=base64Secret,kid2=base64Secret".
+     * Without configuration the built-in secret is used under the default key id.
+     */
+    private static Map<String, SecretKey> parseKeys(String keys) {
+        Map<String, SecretKey> parsed = new LinkedHashMap<>();
+        if (!StringUtils.hasText(keys)) {
+            parsed.put(DEFAULT_KEY_ID, Keys.hmacShaKeyFor(Base64.getDecoder().decode(SecurityConstants.JWTSECRET)));
+            return Collections.unmodifiableMap(parsed);
+        }
+
+        for (String entry : keys.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2 || !StringUtils.hasText(parts[0]) || !StringUtils.hasText(parts[1])) {
+                throw new IllegalStateException("JWT keys must be configured as kid=base64Secret pairs");
+            }
+            parsed.put(parts[0].trim(), Keys.hmacShaKeyFor(Base64.getDecoder().decode(parts[1].trim())));
+        }
+        return Collections.unmodifiableMap(parsed);
+    }
+
+    // Verified contents of a token
+    public record ParsedToken(String subject, Date expiration, String type, Claims claims) {
+
+        // Tokens issued before the type claim existed match neither type, so their holders log in again
+        public boolean isType(String expectedType) {
+            return expectedType.equals(type);
+        }
+    }
+}
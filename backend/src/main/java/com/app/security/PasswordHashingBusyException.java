@@ -0,0 +1,13 @@
+package com.app.security;
+
+/*
+ * Thrown when password hashing work cannot be queued because the hashing executor is saturated.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
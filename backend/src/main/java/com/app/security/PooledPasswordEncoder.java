@@ -0,0 +1,35 @@
+package com.app.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/*
+ * Runs the delegate's hashing and verification on the PasswordHashingExecutor pool. Only the
+ * BCrypt work itself is submitted; user lookups and rehash saves done by the authentication
+ * provider around it stay on the request thread and never hold a hashing slot.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public PooledPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Only inspects the stored hash's prefix and cost, so it stays on the calling thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,135 @@
+package com.app.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * In-memory token-bucket rate limiting for the API.
+ * Authenticated requests are limited per user id, the login/register/refresh routes per client IP.
+ * Buckets are locked in stripes rather than one global lock, and idle buckets are evicted on a schedule.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Set<String> AUTH_ROUTES = Set.of("/api/auth/login", "/api/auth/register", "/api/auth/refresh", "/api/auth/logout");
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final RouteGroup authGroup;
+    private final RouteGroup apiGroup;
+    private final long idleTimeoutNanos;
+
+    public RateLimitFilter(MeterRegistry meterRegistry, Limit authLimit, Limit apiLimit, Duration idleTimeout) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.authGroup = new RouteGroup("auth", authLimit, meterRegistry);
+        this.apiGroup = new RouteGroup("api", apiLimit, meterRegistry);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        Gauge.builder("rate.limit.buckets", buckets, ConcurrentHashMap::size)
+                .description("Rate limit buckets currently held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteGroup group;
+        String client;
+        if (AUTH_ROUTES.contains(request.getRequestURI())) {
+            group = authGroup;
+            client = "ip:" + request.getRemoteAddr();
+        } else {
+            group = apiGroup;
+            // Set by JWTAuthenticationFilter, which runs before this filter
+            Object userId = request.getAttribute(JWTAuthenticationFilter.USER_ID_ATTRIBUTE);
+            client = userId != null ? "user:" + userId : "ip:" + request.getRemoteAddr();
+        }
+
+        String key = group.name + ":" + client;
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(group.limit.capacity(), group.limit.refillPerSecond(), now));
+
+        boolean allowed;
+        long remaining;
+        long retryAfter;
+        synchronized (lockFor(key)) {
+            allowed = bucket.tryConsume(now);
+            remaining = bucket.remainingTokens();
+            retryAfter = allowed ? 0 : Math.max(1, bucket.secondsUntilNextToken());
+        }
+
+        response.setHeader("X-RateLimit-Limit", String.valueOf(group.limit.capacity()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(remaining));
+
+        if (!allowed) {
+            group.rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please try again later.");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /*
+     * Drops buckets that have not been used for the idle timeout. An idle bucket has refilled
+     * completely by then, so recreating it later is indistinguishable from keeping it.
+     */
+    @Scheduled(fixedDelayString = "${security.rate-limit.eviction-interval:PT1M}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.forEach((key, bucket) -> {
+            synchronized (lockFor(key)) {
+                if (now - bucket.lastRefillNanos() > idleTimeoutNanos) {
+                    buckets.remove(key, bucket);
+                }
+            }
+        });
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    // Bucket size and refill rate of one route group
+    public record Limit(long capacity, double refillPerSecond) {
+    }
+
+    private static final class RouteGroup {
+        private final String name;
+        private final Limit limit;
+        private final Counter rejected;
+
+        private RouteGroup(String name, Limit limit, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.limit = limit;
+            this.rejected = Counter.builder("rate.limit.rejected")
+                    .description("Requests rejected by the rate limiter")
+                    .tag("group", name)
+                    .register(meterRegistry);
+        }
+    }
+}
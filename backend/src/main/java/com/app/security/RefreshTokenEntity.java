@@ -0,0 +1,42 @@
+package com.app.security;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/*
+ * One issued refresh token, keyed by its jti. Mongo deletes the record once the token
+ * has expired (TTL index on expiresAt), so the collection only holds live tokens.
+ */
+@Document(collection = "refreshTokens")
+@Data
+@NoArgsConstructor
+public class RefreshTokenEntity {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String userId;
+
+    private Date issuedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+
+    private boolean revoked;
+
+    // jti of the token issued when this one was rotated
+    private String replacedBy;
+
+    public RefreshTokenEntity(String id, String userId, Date issuedAt, Date expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+}
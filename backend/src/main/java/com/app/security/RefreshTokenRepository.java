@@ -0,0 +1,6 @@
+package com.app.security;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RefreshTokenRepository extends MongoRepository<RefreshTokenEntity, String> {
+}
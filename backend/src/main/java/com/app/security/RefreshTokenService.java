@@ -0,0 +1,176 @@
+package com.app.security;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+ * Issues, rotates and revokes refresh tokens. Every refresh token carries a jti that is
+ * recorded in the refreshTokens collection; using a token revokes it and issues a new one.
+ *
+ * Checking whether a token is revoked goes through an in-memory Bloom filter of revoked ids first,
+ * so the common case (token not revoked) does not query the database. The filter is rebuilt from
+ * the collection periodically to pick up revocations made by other instances.
+ */
+@Service
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final JWTGenerator jwtGenerator;
+    private final long expectedRevocations;
+
+    private volatile RevocationBloomFilter revokedIds;
+
+    // Filter being rebuilt, receives revocations made while the rebuild is running
+    private volatile RevocationBloomFilter rebuildingRevokedIds;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               MongoTemplate mongoTemplate,
+                               JWTGenerator jwtGenerator,
+                               @Value("${security.refresh-tokens.expected-revocations:100000}") long expectedRevocations) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.jwtGenerator = jwtGenerator;
+        this.expectedRevocations = expectedRevocations;
+        this.revokedIds = newFilter();
+    }
+
+    public String issue(String userId) {
+        String tokenId = UUID.randomUUID().toString();
+        Date issuedAt = new Date();
+        Date expiresAt = new Date(issuedAt.getTime() + SecurityConstants.JWTEXPIRATIONREFRESH);
+
+        refreshTokenRepository.save(new RefreshTokenEntity(tokenId, userId, issuedAt, expiresAt));
+        return jwtGenerator.generateRefreshToken(userId, tokenId);
+    }
+
+    /*
+     * Checks that a verified refresh token has not been revoked.
+     * Only tokens that hit the Bloom filter are looked up in the database.
+     */
+    public void assertActive(JwtCodec.ParsedToken refreshToken) {
+        String tokenId = tokenIdOf(refreshToken);
+        if (revokedIds.mightContain(tokenId)) {
+            rejectIfInactive(tokenId, refreshToken.subject());
+        }
+    }
+
+    /*
+     * Revokes the given refresh token and issues its replacement. Presenting a token that was
+     * already rotated means it leaked, so every session of that user is revoked as well.
+     */
+    public String rotate(JwtCodec.ParsedToken refreshToken) {
+        String tokenId = tokenIdOf(refreshToken);
+        String userId = refreshToken.subject();
+        String replacementId = UUID.randomUUID().toString();
+
+        // Only one caller can flip revoked from false to true, which makes rotation race-free.
+        // Anything else is sorted out afterwards, so a replayed token always reaches reuse detection.
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(where("_id").is(tokenId).and("userId").is(userId).and("revoked").is(false)),
+                new Update().set("revoked", true).set("replacedBy", replacementId),
+                RefreshTokenEntity.class);
+        if (result.getModifiedCount() == 0) {
+            rejectIfInactive(tokenId, userId);
+            throw new AuthenticationCredentialsNotFoundException("Refresh token was revoked");
+        }
+        markRevoked(tokenId);
+
+        Date issuedAt = new Date();
+        Date expiresAt = new Date(issuedAt.getTime() + SecurityConstants.JWTEXPIRATIONREFRESH);
+        refreshTokenRepository.save(new RefreshTokenEntity(replacementId, userId, issuedAt, expiresAt));
+        return jwtGenerator.generateRefreshToken(userId, replacementId);
+    }
+
+    public void revoke(JwtCodec.ParsedToken refreshToken) {
+        String tokenId = tokenIdOf(refreshToken);
+        mongoTemplate.updateFirst(Query.query(where("_id").is(tokenId)), new Update().set("revoked", true), RefreshTokenEntity.class);
+        markRevoked(tokenId);
+    }
+
+    public void revokeAllForUser(String userId) {
+        Query activeTokens = Query.query(where("userId").is(userId).and("revoked").is(false));
+        activeTokens.fields().include("_id");
+        for (Document token : mongoTemplate.find(activeTokens, Document.class, mongoTemplate.getCollectionName(RefreshTokenEntity.class))) {
+            markRevoked(token.getString("_id"));
+        }
+        mongoTemplate.updateMulti(Query.query(where("userId").is(userId).and("revoked").is(false)),
+                new Update().set("revoked", true), RefreshTokenEntity.class);
+    }
+
+    /*
+     * Replaces the Bloom filter with one built from the revoked, unexpired tokens in the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${security.refresh-tokens.revocation-rebuild-interval:PT5M}",
+               fixedDelayString = "${security.refresh-tokens.revocation-rebuild-interval:PT5M}")
+    public void rebuildRevocationFilter() {
+        RevocationBloomFilter rebuilt = newFilter();
+        rebuildingRevokedIds = rebuilt;
+
+        Query revokedTokens = Query.query(where("revoked").is(true));
+        revokedTokens.fields().include("_id");
+        try (var stream = mongoTemplate.stream(revokedTokens, Document.class, mongoTemplate.getCollectionName(RefreshTokenEntity.class))) {
+            stream.forEach(token -> rebuilt.add(token.getString("_id")));
+        }
+
+        revokedIds = rebuilt;
+        rebuildingRevokedIds = null;
+    }
+
+    /*
+     * Throws if the token is revoked or unknown. A token that was revoked by rotation has been
+     * used before, so all of the user's sessions are revoked before it is rejected.
+     */
+    private void rejectIfInactive(String tokenId, String userId) {
+        RefreshTokenEntity token = refreshTokenRepository.findById(tokenId).orElse(null);
+        if (token == null || !userId.equals(token.getUserId())) {
+            throw new AuthenticationCredentialsNotFoundException("Refresh token was revoked");
+        }
+        if (token.isRevoked()) {
+            if (token.getReplacedBy() != null) {
+                revokeAllForUser(userId);
+                throw new AuthenticationCredentialsNotFoundException("Refresh token was already used");
+            }
+            throw new AuthenticationCredentialsNotFoundException("Refresh token was revoked");
+        }
+    }
+
+    private void markRevoked(String tokenId) {
+        revokedIds.add(tokenId);
+        RevocationBloomFilter rebuilding = rebuildingRevokedIds;
+        if (rebuilding != null) {
+            rebuilding.add(tokenId);
+        }
+    }
+
+    private RevocationBloomFilter newFilter() {
+        return new RevocationBloomFilter(expectedRevocations, 0.01);
+    }
+
+    private static String tokenIdOf(JwtCodec.ParsedToken refreshToken) {
+        if (!refreshToken.isType(JwtCodec.REFRESH_TYPE)) {
+            throw new AuthenticationCredentialsNotFoundException("JWT is not a refresh token");
+        }
+        String tokenId = refreshToken.claims().getId();
+        if (tokenId == null) {
+            // Issued before rotation existed and cannot be revoked, so it is no longer accepted
+            throw new AuthenticationCredentialsNotFoundException("Refresh token has no id, please sign in again");
+        }
+        return tokenId;
+    }
+}
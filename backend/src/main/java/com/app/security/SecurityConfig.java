@@ -1,5 +1,9 @@
 package com.app.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -8,11 +12,15 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.time.Duration;
+import java.util.Map;
+
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
@@ -23,19 +31,30 @@ public class SecurityConfig {
     private final CustomUserDetailsService customUserDetailsService;
     private final JWTGenerator jwtGenerator;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final boolean statelessAuth;
+    private final boolean rateLimitEnabled;
 
     public SecurityConfig(JWTAuthEntryPoint authEntryPoint,
                           CustomUserDetailsService customUserDetailsService,
                           JWTGenerator jwtGenerator,
-                          CorsConfigurationSource corsConfigurationSource) {
+                          CorsConfigurationSource corsConfigurationSource,
+                          @Value("${security.jwt.stateless-auth:false}") boolean statelessAuth,
+                          @Value("${security.rate-limit.enabled:true}") boolean rateLimitEnabled) {
         this.authEntryPoint = authEntryPoint;
         this.customUserDetailsService = customUserDetailsService;
         this.jwtGenerator = jwtGenerator;
         this.corsConfigurationSource = corsConfigurationSource;
+        this.statelessAuth = statelessAuth;
+        this.rateLimitEnabled = rateLimitEnabled;
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimitFilter rateLimitFilter) throws Exception {
+        if (rateLimitEnabled) {
+            // Runs after the JWT filter so authenticated requests are limited per user
+            http.addFilterAfter(rateLimitFilter, JWTAuthenticationFilter.class);
+        }
+
         return http
             // Use the lambda DSL to configure CORS with the injected bean
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
@@ -45,7 +64,9 @@ public class SecurityConfig {
             .sessionManagement(session ->
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh").permitAll()
+                // Streaming responses finish on an async dispatch; the request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh", "/api/auth/logout").permitAll()
                 .anyRequest().authenticated())
             .httpBasic(withDefaults())
             .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
@@ -58,13 +79,45 @@ public class SecurityConfig {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    /*
+     * Hashes are stored as {bcrypt}... so the algorithm or work factor can change later.
+     * DaoAuthenticationProvider rehashes a password on successful login whenever
+     * upgradeEncoding reports it was hashed with older settings.
+     * Hashing and verification run on the bounded hashing pool.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int bcryptStrength,
+                                           PasswordHashingExecutor passwordHashingExecutor) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(bcryptStrength)));
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return new PooledPasswordEncoder(encoder, passwordHashingExecutor);
     }
 
     @Bean
     public JWTAuthenticationFilter jwtAuthenticationFilter() {
-        return new JWTAuthenticationFilter(jwtGenerator, customUserDetailsService);
+        return new JWTAuthenticationFilter(jwtGenerator, customUserDetailsService, statelessAuth);
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(MeterRegistry meterRegistry,
+                                           @Value("${security.rate-limit.auth.capacity:10}") long authCapacity,
+                                           @Value("${security.rate-limit.auth.refill-per-second:0.2}") double authRefillPerSecond,
+                                           @Value("${security.rate-limit.api.capacity:100}") long apiCapacity,
+                                           @Value("${security.rate-limit.api.refill-per-second:20}") double apiRefillPerSecond,
+                                           @Value("${security.rate-limit.idle-timeout:PT10M}") Duration idleTimeout) {
+        return new RateLimitFilter(meterRegistry,
+                new RateLimitFilter.Limit(authCapacity, authRefillPerSecond),
+                new RateLimitFilter.Limit(apiCapacity, apiRefillPerSecond),
+                idleTimeout);
+    }
+
+    // The limiter only runs inside the security chain; keep Boot from also registering it as a servlet filter
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
     }
 }
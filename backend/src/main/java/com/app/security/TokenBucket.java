@@ -0,0 +1,54 @@
+package com.app.security;
+
+/*
+ * Classic token bucket: holds up to capacity tokens and refills continuously.
+ * Not thread-safe on its own, RateLimitFilter guards each bucket with a striped lock.
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    boolean tryConsume(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    long remainingTokens() {
+        return (long) Math.floor(tokens);
+    }
+
+    // Whole seconds until the next token is available
+    long secondsUntilNextToken() {
+        double missing = 1 - tokens;
+        if (missing <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(missing / refillPerNano / 1_000_000_000d);
+    }
+
+    long lastRefillNanos() {
+        return lastRefillNanos;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
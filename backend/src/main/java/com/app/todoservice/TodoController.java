@@ -13,10 +13,7 @@ import java.util.List;
 
 import com.app.Dto.TodoDto;
 import com.app.Section.SectionEntity;
-import com.app.security.JWTGenerator;
-import com.app.security.JWTAuthenticationFilter;
-
-import jakarta.servlet.http.HttpServletRequest;
+import com.app.security.CurrentUserId;
 
 @RestController
 @RequestMapping("api/todo")
@@ -25,25 +22,20 @@ public class TodoController {
     // The todo service
     private final TodoService todoService;
 
-    // JWT Generator
-    JWTGenerator jwt;
-    
     // Constructor to set the todoService
-    public TodoController(TodoService todoService, JWTGenerator jwt) {
+    public TodoController(TodoService todoService) {
         this.todoService = todoService;
-        this.jwt = jwt;
     }
 
     // Get all todos
     @GetMapping
     public List<TodoEntity> getAllTodos(
-        HttpServletRequest request,
+        @CurrentUserId String userID,
         @RequestParam(required = false) String sectionID,
         @RequestParam(required = false) String startDate,
-        @RequestParam(required = false) String endDate) {
+        @RequestParam(required = false) String endDate,
+        @RequestParam(required = false) Integer limit) {
 
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
 
         LocalDateTime start = null;
         LocalDateTime end = null;
@@ -66,24 +58,25 @@ public class TodoController {
             }
         }
 
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+
         // Get all todos by section if specified
         if (sectionID != null) {
-            return todoService.getTodosBySectionID(userID, sectionID, start, end);
+            return todoService.getTodosBySectionID(userID, sectionID, start, end, limit);
         }
 
         // Otherwise get all todos for the user
         else {
-            return todoService.getAllTodos(userID, start, end);
+            return todoService.getAllTodos(userID, start, end, limit);
         }
 
     }
 
     // Get todo by id
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTodo(HttpServletRequest request, @PathVariable String id) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-        
+    public ResponseEntity<?> getTodo(@CurrentUserId String userID, @PathVariable String id) {
         // Retrieve todo
         TodoEntity todo = todoService.getTodoById(userID, id);
         
@@ -96,10 +89,8 @@ public class TodoController {
 
     // Create a new todo
     @PostMapping
-    public ResponseEntity<String> createTodo(HttpServletRequest request, @RequestBody TodoDto todoDto) {
+    public ResponseEntity<String> createTodo(@CurrentUserId String userID, @RequestBody TodoDto todoDto) {
 
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
 
         // Error check description
         if (todoDto.getDescription() == null || todoDto.getDueDate() == null || todoDto.getSectionID() == null) {
@@ -120,10 +111,7 @@ public class TodoController {
 
     // Delete a task (if it exists)
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteTodo(HttpServletRequest request, @PathVariable String id) {
-        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
-        String userID = jwt.getUserIdFromJWT(token);
-
+    public ResponseEntity<String> deleteTodo(@CurrentUserId String userID, @PathVariable String id) {
         // Retrieve todo
         TodoEntity todo = todoService.getTodoById(userID, id);
 
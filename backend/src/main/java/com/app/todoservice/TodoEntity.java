@@ -1,12 +1,19 @@
 package com.app.todoservice;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Document
+@CompoundIndexes({
+    // Date-window listings, with and without a section, are range scans in due-date order
+    @CompoundIndex(name = "user_due", def = "{ 'userID': 1, 'dueDate': 1 }"),
+    @CompoundIndex(name = "user_section_due", def = "{ 'userID': 1, 'sectionID': 1, 'dueDate': 1 }")
+})
 @Data
 @NoArgsConstructor
 public class TodoEntity {
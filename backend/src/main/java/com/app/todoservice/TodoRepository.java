@@ -1,17 +1,28 @@
 package com.app.todoservice;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 
 public interface TodoRepository extends MongoRepository<TodoEntity, String> {
     
-    // Get a list of all the todos corresponding to the specified sectionID
-    Optional<List<TodoEntity>> getTodosByUserIDAndSectionID(String userID, String sectionID);
+    // Todos of the user, ordered and capped in the database
+    List<TodoEntity> findByUserID(String userID, Sort sort, Limit limit);
 
-    // Get a list of all the todos corresponding to the specified userID
-    Optional<List<TodoEntity>> getTodosByUserID(String userID);
+    // Todos of the user due within the range; todos without a due date never match
+    List<TodoEntity> findByUserIDAndDueDateBetween(String userID, Range<LocalDateTime> dueDate, Sort sort, Limit limit);
+
+    // Todos of the user in the section, ordered and capped in the database
+    List<TodoEntity> findByUserIDAndSectionID(String userID, String sectionID, Sort sort, Limit limit);
+
+    // Todos of the user in the section due within the range
+    List<TodoEntity> findByUserIDAndSectionIDAndDueDateBetween(String userID, String sectionID, Range<LocalDateTime> dueDate,
+                                                              Sort sort, Limit limit);
 
     // Get a todo by the specified id
     Optional<TodoEntity> getTodoByUserIDAndId(String userID, String id);
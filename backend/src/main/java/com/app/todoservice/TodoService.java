@@ -3,13 +3,18 @@ package com.app.todoservice;
 import org.springframework.stereotype.Service;
 
 import com.app.Dto.TodoDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class TodoService {
+
+    // Soonest first; the _id tie-break keeps todos due at the same time in creation order
+    private static final Sort DUE_DATE_ORDER = Sort.by("dueDate", "id");
     
     // Todo repository containing all tasks
     private final TodoRepository todoRepository;
@@ -25,26 +30,42 @@ public class TodoService {
         return todoRepository.getTodoByUserIDAndId(userID, id).orElse(null);
     }
 
-    // Get all todos
+    // Get all todos due within [startDate, endDate], soonest first; either bound may be null
     public List<TodoEntity> getAllTodos(String userID, LocalDateTime startDate, LocalDateTime endDate) {
-        List<TodoEntity> todos = todoRepository.getTodosByUserID(userID).orElse(null);
+        return getAllTodos(userID, startDate, endDate, null);
+    }
 
-        // Apply filtering for dates (if provided)
-        return todos.stream()
-            .filter(todo -> (startDate == null || !todo.getDueDate().isBefore(startDate)))
-            .filter(todo -> (endDate == null || !todo.getDueDate().isAfter(endDate)))
-            .collect(Collectors.toList());
+    // Same as above, returning at most limit todos when a limit is given
+    public List<TodoEntity> getAllTodos(String userID, LocalDateTime startDate, LocalDateTime endDate, Integer limit) {
+        if (startDate == null && endDate == null) {
+            return todoRepository.findByUserID(userID, DUE_DATE_ORDER, limitOf(limit));
+        }
+        return todoRepository.findByUserIDAndDueDateBetween(userID, dueDateRange(startDate, endDate), DUE_DATE_ORDER, limitOf(limit));
     }
 
-    // Get todos by section id
+    // Get todos by section id, with the same date window and ordering as getAllTodos
     public List<TodoEntity> getTodosBySectionID(String userID, String id, LocalDateTime startDate, LocalDateTime endDate) {
-        List<TodoEntity> todos = todoRepository.getTodosByUserIDAndSectionID(userID, id).orElse(null);
+        return getTodosBySectionID(userID, id, startDate, endDate, null);
+    }
+
+    // Same as above, returning at most limit todos when a limit is given
+    public List<TodoEntity> getTodosBySectionID(String userID, String id, LocalDateTime startDate, LocalDateTime endDate, Integer limit) {
+        if (startDate == null && endDate == null) {
+            return todoRepository.findByUserIDAndSectionID(userID, id, DUE_DATE_ORDER, limitOf(limit));
+        }
+        return todoRepository.findByUserIDAndSectionIDAndDueDateBetween(userID, id, dueDateRange(startDate, endDate),
+                DUE_DATE_ORDER, limitOf(limit));
+    }
+
+    // Both bounds inclusive, matching the previous in-memory filter
+    private static Range<LocalDateTime> dueDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return Range.of(
+                startDate == null ? Range.Bound.unbounded() : Range.Bound.inclusive(startDate),
+                endDate == null ? Range.Bound.unbounded() : Range.Bound.inclusive(endDate));
+    }
 
-        // Apply filtering for dates (if provided)
-        return todos.stream()
-        .filter(todo -> (startDate == null || !todo.getDueDate().isBefore(startDate)))
-        .filter(todo -> (endDate == null || !todo.getDueDate().isAfter(endDate)))
-        .collect(Collectors.toList());
+    private static Limit limitOf(Integer limit) {
+        return limit == null ? Limit.unlimited() : Limit.of(limit);
     }
 
     // Convert a TodoEntity to a TodoDto that is returned to the client as a response
@@ -0,0 +1,77 @@
+package com.app.Course;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AssignmentRecurrencesTest {
+
+    private final AssignmentRecurrences recurrences = new AssignmentRecurrences(new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+
+    private static AssignmentDto assignment(String dueDate, boolean recurring, String pattern, String endDate) {
+        return new AssignmentDto("a1", "Problem set", null, dueDate, false, "Algorithms", recurring, pattern, endDate);
+    }
+
+    private static LocalDateTime at(int month, int day, int hour) {
+        return LocalDateTime.of(2025, month, day, hour, 0);
+    }
+
+    @Test
+    void oneOffAssignmentYieldsItsDueDateOnlyInsideTheWindow() {
+        AssignmentDto oneOff = assignment("2025-03-10T09:00", false, null, null);
+
+        assertEquals(List.of(at(3, 10, 9)), recurrences.occurrences(oneOff, at(3, 1, 0), at(3, 31, 0), 10));
+        assertEquals(List.of(), recurrences.occurrences(oneOff, at(3, 11, 0), null, 10));
+    }
+
+    @Test
+    void boundedWindowIsCutToTheExactRangeAndLimit() {
+        AssignmentDto weekly = assignment("2025-01-06T09:00", true, "weekly", null);
+
+        assertEquals(List.of(at(1, 13, 9), at(1, 20, 9), at(1, 27, 9)),
+                recurrences.occurrences(weekly, at(1, 13, 9), at(1, 27, 9), 10));
+        // Same days, so the cached window is reused, but the hour bounds still apply
+        assertEquals(List.of(at(1, 20, 9)), recurrences.occurrences(weekly, at(1, 13, 10), at(1, 27, 8), 10));
+        assertEquals(List.of(at(1, 13, 9)), recurrences.occurrences(weekly, at(1, 13, 9), at(1, 27, 9), 1));
+    }
+
+    @Test
+    void openEndedWindowStopsAtTheLimit() {
+        AssignmentDto daily = assignment("2025-01-01T23:59", true, "daily", "2030-01-01");
+
+        List<LocalDateTime> occurrences = recurrences.occurrences(daily, at(6, 1, 0), null, 3);
+        assertEquals(List.of(LocalDateTime.of(2025, 6, 1, 23, 59), LocalDateTime.of(2025, 6, 2, 23, 59),
+                LocalDateTime.of(2025, 6, 3, 23, 59)), occurrences);
+    }
+
+    @Test
+    void editedSeriesIsNotServedFromTheCache() {
+        AssignmentDto series = assignment("2025-01-06T09:00", true, "weekly", null);
+        recurrences.occurrences(series, at(1, 1, 0), at(1, 31, 0), 10);
+
+        series.setRecurrenceEndDate("2025-01-14");
+        assertEquals(List.of(at(1, 6, 9), at(1, 13, 9)), recurrences.occurrences(series, at(1, 1, 0), at(1, 31, 0), 10));
+    }
+
+    @Test
+    void unparseablePatternFallsBackToTheStoredDueDate() {
+        AssignmentDto series = assignment("2025-01-06T09:00", true, "every other full moon", null);
+
+        assertEquals(List.of(at(1, 6, 9)), recurrences.occurrences(series, at(1, 1, 0), at(1, 31, 0), 10));
+    }
+
+    @Test
+    void parsesTheStoredDateFormats() {
+        assertEquals(at(3, 10, 9), AssignmentRecurrences.parseDateTime("2025-03-10T09:00"));
+        assertEquals(at(3, 10, 9), AssignmentRecurrences.parseDateTime("2025-03-10T09:00:00Z"));
+        assertEquals(LocalDateTime.of(2025, 3, 10, 23, 59, 59), AssignmentRecurrences.parseDateTime("2025-03-10"));
+        assertNull(AssignmentRecurrences.parseDateTime(""));
+        assertNull(AssignmentRecurrences.parseDateTime("next week"));
+    }
+}
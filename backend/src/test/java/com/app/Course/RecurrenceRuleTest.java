@@ -0,0 +1,127 @@
+package com.app.Course;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecurrenceRuleTest {
+
+    private static List<LocalDateTime> take(RecurrenceRule rule, LocalDateTime start, LocalDateTime from, int max) {
+        List<LocalDateTime> taken = new ArrayList<>();
+        Iterator<LocalDateTime> occurrences = rule.occurrences(start, from);
+        while (taken.size() < max && occurrences.hasNext()) {
+            taken.add(occurrences.next());
+        }
+        return taken;
+    }
+
+    private static LocalDateTime at(int year, int month, int day) {
+        return LocalDateTime.of(year, month, day, 10, 0);
+    }
+
+    @Test
+    void monthlyFromEndOfMonthClampsWithoutDrifting() {
+        RecurrenceRule rule = RecurrenceRule.parse("monthly", null);
+        LocalDateTime start = at(2025, 1, 31);
+
+        assertEquals(List.of(at(2025, 1, 31), at(2025, 2, 28), at(2025, 3, 31), at(2025, 4, 30), at(2025, 5, 31)),
+                take(rule, start, start, 5));
+    }
+
+    @Test
+    void monthlyJumpFromClampedMonthLandsOnNextOccurrence() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY", null);
+        LocalDateTime start = at(2024, 1, 31);
+
+        // Leap year February, then back to the 31st
+        assertEquals(List.of(at(2024, 2, 29), at(2024, 3, 31)), take(rule, start, LocalDateTime.of(2024, 2, 1, 0, 0), 2));
+        assertEquals(List.of(at(2024, 3, 31)), take(rule, start, LocalDateTime.of(2024, 3, 1, 0, 0), 1));
+    }
+
+    @Test
+    void countIsHonouredWhenTheWindowStartsLate() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;COUNT=10", null);
+        LocalDateTime start = at(2025, 1, 1);
+
+        assertEquals(List.of(at(2025, 1, 8), at(2025, 1, 9), at(2025, 1, 10)), take(rule, start, at(2025, 1, 8), 100));
+        assertFalse(rule.occurrences(start, at(2025, 1, 11)).hasNext());
+    }
+
+    @Test
+    void byDaySkipsDaysBeforeTheStartInTheFirstWeek() {
+        // 2025-01-01 is a Wednesday, so the Monday of that week is not an occurrence
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=4", null);
+        LocalDateTime start = at(2025, 1, 1);
+
+        assertEquals(List.of(at(2025, 1, 1), at(2025, 1, 3), at(2025, 1, 6), at(2025, 1, 8)), take(rule, start, start, 10));
+        // Jumping past the partial first week still counts its two occurrences
+        assertEquals(List.of(at(2025, 1, 6), at(2025, 1, 8)), take(rule, start, at(2025, 1, 4), 10));
+    }
+
+    @Test
+    void byDayWithIntervalSkipsWholeWeeks() {
+        // 2025-09-04 is a Thursday
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH", null);
+        LocalDateTime start = at(2025, 9, 4);
+
+        assertEquals(List.of(at(2025, 9, 4), at(2025, 9, 16), at(2025, 9, 18), at(2025, 9, 30)), take(rule, start, start, 4));
+        assertEquals(List.of(at(2025, 9, 16), at(2025, 9, 18)), take(rule, start, at(2025, 9, 10), 2));
+    }
+
+    @Test
+    void earlierOfUntilAndEndDateEndsTheSeries() {
+        LocalDateTime start = at(2025, 1, 1);
+
+        RecurrenceRule endDateFirst = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20250105", LocalDateTime.of(2025, 1, 3, 23, 59));
+        assertEquals(at(2025, 1, 3), last(take(endDateFirst, start, start, 100)));
+
+        RecurrenceRule untilFirst = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20250105", LocalDateTime.of(2025, 2, 1, 0, 0));
+        assertEquals(at(2025, 1, 5), last(take(untilFirst, start, start, 100)));
+
+        RecurrenceRule untilDateTime = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20250104T095900Z", null);
+        assertEquals(at(2025, 1, 3), last(take(untilDateTime, start, start, 100)));
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("hourly", null));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=YEARLY", null));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO", null));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;INTERVAL=0", null));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=XX", null));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(" ", null));
+    }
+
+    @Test
+    void jumpingAheadMatchesWalkingFromTheStart() {
+        String[] patterns = {
+            "daily", "weekly", "monthly", "FREQ=DAILY;INTERVAL=3;COUNT=40", "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH,SU",
+            "FREQ=WEEKLY;BYDAY=SA;COUNT=7", "FREQ=MONTHLY;INTERVAL=5", "FREQ=MONTHLY;COUNT=12"
+        };
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            String pattern = patterns[random.nextInt(patterns.length)];
+            LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(random.nextInt(400)).withHour(random.nextInt(24));
+            LocalDateTime from = start.plusHours(random.nextInt(24 * 700));
+            RecurrenceRule rule = RecurrenceRule.parse(pattern, null);
+
+            List<LocalDateTime> expected = take(rule, start, start, 2_000).stream()
+                    .filter(occurrence -> !occurrence.isBefore(from))
+                    .limit(5)
+                    .toList();
+            assertEquals(expected, take(rule, start, from, 5), pattern + " from " + start + " at " + from);
+        }
+    }
+
+    private static LocalDateTime last(List<LocalDateTime> occurrences) {
+        return occurrences.get(occurrences.size() - 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.app.Tutor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TutorPostingSearchIndexTest {
+
+    private final TutorPostingSearchIndex index = new TutorPostingSearchIndex();
+
+    private static TutorPostingEntity posting(String id, String title, String description, String... courses) {
+        TutorPostingEntity posting = new TutorPostingEntity();
+        posting.setId(id);
+        posting.setTitle(title);
+        posting.setDescription(description);
+        posting.setCoursesTaught(List.of(courses));
+        posting.setUniversity("University of Toronto");
+        return posting;
+    }
+
+    private List<String> searchIds(String query, int limit) {
+        return index.search(query, limit).stream().map(TutorPostingEntity::getId).toList();
+    }
+
+    @Test
+    void courseCodesAreNormalizedAcrossSpellings() {
+        for (String spelling : List.of("CSC301", "csc 301", "CSC-301")) {
+            List<String> tokens = TutorPostingSearchIndex.tokenize(spelling);
+            assertTrue(tokens.containsAll(List.of("csc301", "csc", "301")), spelling + " -> " + tokens);
+        }
+    }
+
+    @Test
+    void tokenizerDropsStopWordsAndDoesNotJoinAcrossPunctuation() {
+        assertEquals(List.of("help", "calculus"), TutorPostingSearchIndex.tokenize("Help with the Calculus"));
+        assertEquals(List.of("csc", "301"), TutorPostingSearchIndex.tokenize("csc, 301"));
+        assertEquals(List.of("math", "12"), TutorPostingSearchIndex.tokenize("math 12"));
+        assertEquals(List.of(), TutorPostingSearchIndex.tokenize(null));
+    }
+
+    @Test
+    void courseMatchesOutrankDescriptionMentions() {
+        index.put(posting("p1", "Programming help", "I also know some csc301"));
+        index.put(posting("p2", "Programming help", "Patient tutor", "CSC301"));
+        index.put(posting("p3", "Chemistry", "Organic chemistry", "CHM136"));
+
+        assertEquals(List.of("p2", "p1"), searchIds("csc 301", 10));
+    }
+
+    @Test
+    void rarerTermsWeighMore() {
+        index.put(posting("p1", "Calculus tutor", "Calculus and algebra"));
+        index.put(posting("p2", "Calculus tutor", "Calculus and statistics"));
+        index.put(posting("p3", "Calculus tutor", "Calculus and physics"));
+
+        assertEquals("p2", searchIds("calculus statistics", 1).get(0));
+    }
+
+    @Test
+    void limitKeepsTheBestAndTiesGoToTheOlderPosting() {
+        index.put(posting("p3", "Physics", "Mechanics"));
+        index.put(posting("p1", "Physics", "Mechanics"));
+        index.put(posting("p2", "Physics", "Mechanics"));
+
+        assertEquals(List.of("p1", "p2"), searchIds("physics", 2));
+        assertEquals(List.of(), searchIds("physics", 0));
+        assertEquals(List.of(), searchIds("", 10));
+    }
+
+    @Test
+    void updateReplacesThePostingInItsSlot() {
+        index.put(posting("p1", "Calculus", "Derivatives"));
+        for (int i = 0; i < 50; i++) {
+            index.put(posting("p1", "Statistics " + i, "Regression"));
+        }
+
+        assertEquals(List.of(), searchIds("calculus", 10));
+        assertEquals(List.of("p1"), searchIds("regression", 10));
+        assertEquals(1, index.state.slotCount());
+    }
+
+    @Test
+    void deletedSlotsAreReusedAndNeverMatch() {
+        index.put(posting("p1", "Calculus", "Derivatives"));
+        index.put(posting("p2", "Algebra", "Matrices"));
+        index.remove("p1");
+
+        assertEquals(List.of(), searchIds("calculus derivatives", 10));
+
+        index.put(posting("p3", "Statistics", "Regression"));
+        assertEquals(2, index.state.slotCount());
+        assertEquals(List.of("p3"), searchIds("regression", 10));
+        assertFalse(searchIds("matrices", 10).contains("p3"));
+    }
+}
@@ -0,0 +1,182 @@
+package com.app.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SingleFlight<String, String> singleFlight(Duration ttl) {
+        return new SingleFlight<>("test", meterRegistry, ttl, 100);
+    }
+
+    private double loads(String result) {
+        return meterRegistry.get("single.flight.loads").tag("result", result).counter().count();
+    }
+
+    // Waits until every caller but the leader is parked on the leader's load
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loads("coalesced") < expected) {
+            assertTrue(System.nanoTime() < deadline, "callers did not coalesce");
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = singleFlight(Duration.ZERO);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.get("k", key -> {
+                    loaderCalls.incrementAndGet();
+                    await(release);
+                    return "value";
+                })));
+            }
+            awaitCoalesced(CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, loads("led"));
+        assertEquals(CALLERS - 1, loads("coalesced"));
+    }
+
+    @Test
+    void loaderFailureReachesEveryWaitingCallerAndIsNotCached() throws Exception {
+        SingleFlight<String, String> flight = singleFlight(Duration.ofMinutes(1));
+        IllegalStateException failure = new IllegalStateException("database down");
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.get("k", key -> {
+                    await(release);
+                    throw failure;
+                })));
+            }
+            awaitCoalesced(CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertSame(failure, thrown.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals("recovered", flight.get("k", key -> "recovered"));
+    }
+
+    @Test
+    void loaderErrorReachesEveryWaitingCallerAndDoesNotBlockTheKey() throws Exception {
+        SingleFlight<String, String> flight = singleFlight(Duration.ofMinutes(1));
+        StackOverflowError failure = new StackOverflowError();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.get("k", key -> {
+                    await(release);
+                    throw failure;
+                })));
+            }
+            awaitCoalesced(CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertSame(failure, thrown.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals("recovered", flight.get("k", key -> "recovered"));
+    }
+
+    @Test
+    void resultsIncludingNotFoundAreCachedUntilInvalidated() {
+        SingleFlight<String, String> flight = singleFlight(Duration.ofMinutes(1));
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        assertNull(flight.get("missing", key -> {
+            loaderCalls.incrementAndGet();
+            return null;
+        }));
+        assertNull(flight.get("missing", key -> {
+            loaderCalls.incrementAndGet();
+            return "late";
+        }));
+        assertEquals(1, loaderCalls.get());
+
+        flight.invalidate("missing");
+        assertEquals("late", flight.get("missing", key -> "late"));
+    }
+
+    @Test
+    void zeroTtlDisablesCaching() {
+        SingleFlight<String, String> flight = singleFlight(Duration.ZERO);
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        flight.get("k", key -> "v" + loaderCalls.incrementAndGet());
+        assertEquals("v2", flight.get("k", key -> "v" + loaderCalls.incrementAndGet()));
+    }
+
+    @Test
+    void loadInvalidatedWhileInFlightIsNotCached() {
+        SingleFlight<String, String> flight = singleFlight(Duration.ofMinutes(1));
+
+        String stale = flight.get("k", key -> {
+            flight.invalidate("k");
+            return "stale";
+        });
+
+        assertEquals("stale", stale);
+        assertEquals("fresh", flight.get("k", key -> "fresh"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
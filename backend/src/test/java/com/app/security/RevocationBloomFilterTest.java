@@ -0,0 +1,67 @@
+package com.app.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationBloomFilterTest {
+
+    @Test
+    void neverReportsAnAddedIdAsAbsent() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(10_000, 0.01);
+        String[] ids = new String[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            filter.add(ids[i]);
+        }
+
+        for (String id : ids) {
+            assertTrue(filter.mightContain(id), id);
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(1_000, 0.01);
+
+        assertFalse(filter.mightContain(UUID.randomUUID().toString()));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTargetForRandomIds() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(UUID.randomUUID().toString());
+        }
+
+        assertTrue(falsePositiveRate(filter, "other-", 100_000) < 0.02);
+    }
+
+    @Test
+    void similarSequentialIdsAreSpreadAcrossTheBits() {
+        // Ids differing only in their last characters must not collide on the same bits
+        RevocationBloomFilter filter = new RevocationBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("token-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("token-" + i));
+        }
+        assertTrue(falsePositiveRate(filter, "token-x", 100_000) < 0.02);
+    }
+
+    private static double falsePositiveRate(RevocationBloomFilter filter, String prefix, int probes) {
+        int hits = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(prefix + i)) {
+                hits++;
+            }
+        }
+        return (double) hits / probes;
+    }
+}
@@ -0,0 +1,71 @@
+package com.app.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void startsFullAndDeniesOnceEmpty() {
+        TokenBucket bucket = new TokenBucket(3, 1, 0);
+
+        assertTrue(bucket.tryConsume(0));
+        assertTrue(bucket.tryConsume(0));
+        assertTrue(bucket.tryConsume(0));
+        assertFalse(bucket.tryConsume(0));
+        assertEquals(0, bucket.remainingTokens());
+    }
+
+    @Test
+    void refillsInProportionToElapsedTime() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        for (int i = 0; i < 10; i++) {
+            bucket.tryConsume(0);
+        }
+
+        // Two tokens per second: a quarter second is half a token, half a second is one
+        assertFalse(bucket.tryConsume(SECOND / 4));
+        assertTrue(bucket.tryConsume(SECOND / 2));
+        assertFalse(bucket.tryConsume(SECOND / 2));
+        assertEquals(SECOND / 2, bucket.lastRefillNanos());
+    }
+
+    @Test
+    void neverHoldsMoreThanCapacity() {
+        TokenBucket bucket = new TokenBucket(5, 100, 0);
+        bucket.tryConsume(0);
+
+        assertTrue(bucket.tryConsume(3_600 * SECOND));
+        assertEquals(4, bucket.remainingTokens());
+    }
+
+    @Test
+    void reportsWholeSecondsUntilTheNextToken() {
+        TokenBucket bucket = new TokenBucket(1, 0.2, 0);
+        assertEquals(0, bucket.secondsUntilNextToken());
+
+        bucket.tryConsume(0);
+        assertEquals(5, bucket.secondsUntilNextToken());
+
+        bucket.tryConsume(SECOND / 2);
+        assertEquals(5, bucket.secondsUntilNextToken());
+
+        bucket.tryConsume(SECOND + SECOND / 2);
+        assertEquals(4, bucket.secondsUntilNextToken());
+    }
+
+    @Test
+    void clockGoingBackwardsAddsNoTokens() {
+        TokenBucket bucket = new TokenBucket(1, 1, 10 * SECOND);
+        bucket.tryConsume(10 * SECOND);
+
+        assertFalse(bucket.tryConsume(5 * SECOND));
+        assertEquals(10 * SECOND, bucket.lastRefillNanos());
+        assertTrue(bucket.tryConsume(11 * SECOND));
+    }
+}